@@ -0,0 +1,62 @@
+package com.Cybersoft.Final_Capstone.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+/**
+ * Per-host dashboard counters (1 row / host), same idea as SystemStats
+ * - Booking counters + revenue: cộng/trừ theo BookingStatusChangedEvent
+ * - Rating aggregates: tính lại từ property của host khi review thay đổi
+ * - Row thiếu -> rebuild từ DB (HostStatsService.rebuild)
+ */
+@Entity
+@Table(name = "host_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+public class HostStats {
+    @Id
+    @Column(name = "host_id")
+    private Integer hostId;
+
+    @Column(nullable = false)
+    private int totalProperties = 0;
+
+    @Column(nullable = false)
+    private int totalBookings = 0;
+
+    @Column(nullable = false)
+    private int pendingBookings = 0;
+
+    @Column(nullable = false)
+    private int confirmedBookings = 0;
+
+    @Column(nullable = false)
+    private int completedBookings = 0;
+
+    // CANCELLED + REJECTED
+    @Column(nullable = false)
+    private int cancelledBookings = 0;
+
+    // Sum of total_price of COMPLETED bookings
+    @Column(nullable = false)
+    private BigDecimal totalRevenue = BigDecimal.ZERO;
+
+    // Sum / count of properties with overall_rating > 0
+    @Column(nullable = false)
+    private BigDecimal ratingSum = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private int ratedProperties = 0;
+
+    public HostStats(Integer hostId) {
+        this.hostId = hostId;
+    }
+}
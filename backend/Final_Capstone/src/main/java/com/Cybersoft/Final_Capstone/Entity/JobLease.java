@@ -0,0 +1,36 @@
+package com.Cybersoft.Final_Capstone.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lease of one scheduled job (1 row / job name), used for leader election across instances
+ * - owner = instance đang giữ lease, locked_until = hết hạn nếu không renew
+ * - Acquire/renew/release bằng UPDATE có điều kiện (JobLeaseRepository), thời gian lấy theo DB (NOW(3))
+ */
+@Entity
+@Table(name = "job_lease")
+@Getter
+@Setter
+@NoArgsConstructor
+public class JobLease {
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    @Column(name = "owner", nullable = false, length = 128)
+    private String owner;
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+}
@@ -0,0 +1,56 @@
+package com.Cybersoft.Final_Capstone.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Raw PayOS webhook waiting for / after async processing (PaymentWebhookWorker)
+ * - UNIQUE (order_code, reference): PayOS retry của cùng 1 webhook bị bỏ qua khi insert
+ * - status: RECEIVED -> PROCESSING -> PROCESSED | (retry) RECEIVED | FAILED
+ */
+@Entity
+@Table(name = "payment_webhook_event")
+@Getter
+@Setter
+@NoArgsConstructor
+public class PaymentWebhookEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_code", nullable = false)
+    private Long orderCode;
+
+    @Column(name = "reference", nullable = false, length = 100)
+    private String reference;
+
+    @Column(name = "payload", nullable = false, columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "status", nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "received_at", nullable = false)
+    private LocalDateTime receivedAt;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+}
@@ -23,7 +23,8 @@ import java.time.Instant;
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_user_active", columnList = "user_id, revoked, expires_at"),
     @Index(name = "idx_device_limit", columnList = "user_id, device_id, revoked, expires_at"),
-    @Index(name = "idx_cleanup", columnList = "expires_at, revoked")
+    @Index(name = "idx_cleanup", columnList = "expires_at, revoked"),
+    @Index(name = "idx_revoked_at", columnList = "revoked_at")
 })
 @Getter
 @Setter
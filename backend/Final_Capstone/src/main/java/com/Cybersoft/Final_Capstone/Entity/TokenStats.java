@@ -0,0 +1,35 @@
+package com.Cybersoft.Final_Capstone.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Refresh-token counters (1 row), same idea as SystemStats
+ * - Cộng/trừ theo TokenCountsChangedEvent (TokenStatsRecorder gom delta rồi flush định kỳ)
+ * - Reconcile bằng COUNT thật 1 lần/ngày để sửa drift
+ */
+@Entity
+@Table(name = "token_stats")
+@Getter
+@Setter
+@NoArgsConstructor
+public class TokenStats {
+    @Id
+    private Long id = 1L; // bảng chỉ có 1 row duy nhất
+
+    @Column(name = "total_tokens", nullable = false)
+    private long totalTokens = 0;
+
+    @Column(name = "revoked_tokens", nullable = false)
+    private long revokedTokens = 0;
+
+    @Column(name = "reconciled_at")
+    private LocalDateTime reconciledAt;
+}
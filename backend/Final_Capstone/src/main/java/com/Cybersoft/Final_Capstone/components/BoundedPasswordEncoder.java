@@ -0,0 +1,99 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import com.Cybersoft.Final_Capstone.exception.ServiceBusyException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * PasswordEncoder chạy BCrypt trên pool riêng, giới hạn số thread + hàng đợi
+ * - Login/signup burst chỉ dùng tối đa N core cho hashing => request browse vẫn còn CPU
+ * - Hàng đợi đầy hoặc chờ quá wait-timeout => ServiceBusyException (503), không treo request thread
+ * - Queue nhỏ (vài lần số thread): số request thread chờ hashing luôn <= threads + queue,
+ *   phần còn lại bị từ chối ngay thay vì chiếm thread của Tomcat
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor hashers;
+    private final long waitTimeoutMs;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long waitTimeoutMs) {
+        this.delegate = delegate;
+        this.waitTimeoutMs = waitTimeoutMs;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.hashers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "password-hash-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        // No hashing involved
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public void shutdown() {
+        hashers.shutdown();
+    }
+
+    int queued() {
+        return hashers.getQueue().size();
+    }
+
+    private <T> T run(Supplier<T> work) {
+        Future<T> future;
+        try {
+            future = hashers.submit(work::get);
+        } catch (RejectedExecutionException e) {
+            log.warn("⚠️ Password hashing queue full ({} queued), rejecting request", hashers.getQueue().size());
+            throw new ServiceBusyException("Server is busy. Please try again later.");
+        }
+
+        try {
+            return future.get(waitTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            // Free the queue slot now instead of when a worker reaches the cancelled task
+            if (future instanceof Runnable task) {
+                hashers.remove(task);
+            }
+            log.warn("⚠️ Password hashing wait exceeded {} ms", waitTimeoutMs);
+            throw new ServiceBusyException("Server is busy. Please try again later.");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("Password hashing interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import com.Cybersoft.Final_Capstone.scheduler.JobLeaseManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Shared token buckets in rate_limit_bucket (rate-limit.store=jdbc)
+ * - Cùng thuật toán với LocalRateLimitStore (tat = thời điểm bucket đầy lại), nhưng CAS là 1 conditional UPDATE
+ *   theo primary key => limit chung cho mọi instance, không cần lock
+ * - Đọc tat theo primary key trước: bucket rỗng => 429 mà không ghi gì (request bị chặn không tốn write / row lock)
+ * - Thời gian là epoch millis của app server (NTP sync là đủ cho window tính bằng giây)
+ * - Row của bucket đã đầy lại bị xoá theo chunk (job có lease)
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "jdbc")
+@Slf4j
+public class JdbcRateLimitStore implements RateLimitStore {
+
+    private static final int CLEANUP_CHUNK = 1000;
+
+    private static final String READ_SQL =
+            "SELECT tat FROM rate_limit_bucket WHERE bucket_key = ?";
+
+    private static final String CONSUME_SQL =
+            "UPDATE rate_limit_bucket SET tat = GREATEST(tat, ?) + ? " +
+            "WHERE bucket_key = ? AND GREATEST(tat, ?) + ? - ? <= ?";
+
+    private static final String CREATE_SQL =
+            "INSERT IGNORE INTO rate_limit_bucket (bucket_key, tat) VALUES (?, ?)";
+
+    private static final String CLEANUP_SQL =
+            "DELETE FROM rate_limit_bucket WHERE tat < ? LIMIT " + CLEANUP_CHUNK;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JobLeaseManager jobLeaseManager;
+    private final LongSupplier clock;
+
+    @Autowired
+    public JdbcRateLimitStore(JdbcTemplate jdbcTemplate, JobLeaseManager jobLeaseManager) {
+        this(jdbcTemplate, jobLeaseManager, System::currentTimeMillis);
+    }
+
+    JdbcRateLimitStore(JdbcTemplate jdbcTemplate, JobLeaseManager jobLeaseManager, LongSupplier clock) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jobLeaseManager = jobLeaseManager;
+        this.clock = clock;
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int capacity, Duration window) {
+        long limit = window.toMillis();
+        long interval = Math.max(1, limit / capacity);
+        long now = clock.getAsLong();
+
+        List<Long> tat = jdbcTemplate.queryForList(READ_SQL, Long.class, key);
+        if (!tat.isEmpty()) {
+            if (Math.max(tat.get(0), now) + interval - now > limit) {
+                // Empty: reject without touching the row
+                return false;
+            }
+            // Conditional UPDATE still guards against a concurrent consumer draining the last token
+            if (consume(key, now, interval, limit)) {
+                return true;
+            }
+        }
+        // Bucket missing (first request / expired), or raced with another instance / the cleanup job
+        if (jdbcTemplate.update(CREATE_SQL, key, now + interval) == 1) {
+            return true;
+        }
+        return consume(key, now, interval, limit);
+    }
+
+    private boolean consume(String key, long now, long interval, long limit) {
+        return jdbcTemplate.update(CONSUME_SQL, now, interval, key, now, interval, now, limit) == 1;
+    }
+
+    /**
+     * Full buckets behave exactly like missing rows, so they can be dropped
+     */
+    @Scheduled(fixedDelayString = "${rate-limit.jdbc.cleanup-delay-ms:60000}")
+    public void deleteIdleBuckets() {
+        jobLeaseManager.runExclusively("rate-limit-cleanup", () -> {
+            long now = clock.getAsLong();
+            int total = 0;
+            int deleted;
+            do {
+                deleted = jdbcTemplate.update(CLEANUP_SQL, now);
+                total += deleted;
+            } while (deleted == CLEANUP_CHUNK);
+
+            if (total > 0) {
+                log.debug("Rate limit buckets deleted: {}", total);
+            }
+        });
+    }
+}
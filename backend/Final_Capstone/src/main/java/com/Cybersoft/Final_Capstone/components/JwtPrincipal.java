@@ -0,0 +1,27 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.security.Principal;
+import java.util.List;
+
+/**
+ * Lightweight, immutable principal built only from verified access-token claims
+ * - Dùng khi bật jwt.claims-only-principal: filter KHÔNG load UserAccount từ DB
+ * - Cần entity thì gọi SecurityUtil.getLoggedInUser() (load lazily)
+ */
+public record JwtPrincipal(Integer userId, String username, String email, String role) implements Principal {
+
+    @Override
+    public String getName() {
+        return username;
+    }
+
+    /**
+     * Same authority format as UserAccount.getAuthorities()
+     */
+    public List<GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase()));
+    }
+}
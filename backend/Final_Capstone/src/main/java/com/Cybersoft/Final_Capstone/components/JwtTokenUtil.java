@@ -15,17 +15,24 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
  * NOTE: Unified JWT Service
  * - Access Token: stateless, không lưu DB, chỉ verify signature
  * - Refresh Token: stateful, lưu DB với JTI, có thể revoke
+ * - Parser + signing key build 1 lần; claims đã verify được cache theo SHA-256 của token (CLOCK eviction)
  */
 @Component
 @RequiredArgsConstructor
@@ -52,8 +59,23 @@ public class JwtTokenUtil {
     @Value("${jwt.remember-refresh-expiration-days:30}")
     private long rememberRefreshExpirationDays;
 
+    @Value("${jwt.claims-cache.max-size:10000}")
+    private int claimsCacheMaxSize;
+
+    // Max entries the clock hand inspects per eviction (keeps a miss O(1) even when every entry was just used)
+    private static final int CLOCK_MAX_SCAN = 64;
+
     private final TokenRepository tokenRepository;
 
+    // Verified claims keyed by token hash (không giữ raw bearer token trong heap), bounded by jwt.claims-cache.max-size
+    // Hit: lock-free get + set bit referenced; chỉ miss khi cache đầy mới lấy clockLock để evict
+    private final Map<String, VerifiedClaims> verifiedClaims = new ConcurrentHashMap<>();
+    private final Object clockLock = new Object();
+    private Iterator<Map.Entry<String, VerifiedClaims>> clockHand; // guarded by clockLock
+
+    private volatile SecretKey signInKey;
+    private volatile JwtParser parser;
+
     /**
      * Get refresh token expiration in milliseconds (for cookie maxAge)
      */
@@ -150,8 +172,25 @@ public class JwtTokenUtil {
     }
 
     private SecretKey getSignInKey() {
-        byte[] bytes = Decoders.BASE64.decode(secret);
-        return Keys.hmacShaKeyFor(bytes);
+        SecretKey key = signInKey;
+        if (key == null) {
+            byte[] bytes = Decoders.BASE64.decode(secret);
+            key = Keys.hmacShaKeyFor(bytes);
+            signInKey = key;
+        }
+        return key;
+    }
+
+    private JwtParser getParser() {
+        JwtParser current = parser;
+        if (current == null) {
+            // JwtParser is immutable and thread-safe
+            current = Jwts.parser()
+                    .verifyWith(getSignInKey())
+                    .build();
+            parser = current;
+        }
+        return current;
     }
 
     /**
@@ -180,15 +219,106 @@ public class JwtTokenUtil {
         }
     }
 
+    private static final class VerifiedClaims {
+        private final Claims claims;
+        private final long expiresAtMillis;
+        // CLOCK bit: set on hit, cleared when the hand passes => second chance before eviction
+        private volatile boolean referenced;
+
+        private VerifiedClaims(Claims claims, long expiresAtMillis) {
+            this.claims = claims;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * Verify signature + expiry and return the claims (one parse per token)
+     * - Cache hit: trả claims đã verify, không verify HMAC lại
+     * - Entry sống tối đa min(token exp, access-token lifetime)
+     * - Token hết hạn luôn parse lại để ném ExpiredJwtException như cũ
+     */
+    public Claims parseClaims(String token) {
+        String key = hash(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedClaims cached = verifiedClaims.get(key);
+        if (cached != null) {
+            if (now < cached.expiresAtMillis) {
+                if (!cached.referenced) {
+                    cached.referenced = true;
+                }
+                return cached.claims;
+            }
+            verifiedClaims.remove(key, cached);
+        }
+
+        Claims claims = getParser().parseSignedClaims(token).getPayload();
+        cache(key, claims, now);
+        return claims;
+    }
+
+    private void cache(String key, Claims claims, long now) {
+        if (claimsCacheMaxSize <= 0) {
+            return;
+        }
+        long expiresAt = now + accessExpirationSeconds * 1000;
+        if (claims.getExpiration() != null) {
+            expiresAt = Math.min(expiresAt, claims.getExpiration().getTime());
+        }
+        if (expiresAt <= now) {
+            return;
+        }
+
+        verifiedClaims.put(key, new VerifiedClaims(claims, expiresAt));
+        if (verifiedClaims.size() > claimsCacheMaxSize) {
+            synchronized (clockLock) {
+                while (verifiedClaims.size() > claimsCacheMaxSize) {
+                    if (!evictOne(now)) {
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * CLOCK: advance the hand over the map, evict the first expired or unreferenced entry,
+     * clear the referenced bit of the others; after CLOCK_MAX_SCAN entries evict the current one anyway
+     * @return false when the map is empty
+     */
+    private boolean evictOne(long now) {
+        for (int scanned = 0; ; scanned++) {
+            if (clockHand == null || !clockHand.hasNext()) {
+                clockHand = verifiedClaims.entrySet().iterator();
+                if (!clockHand.hasNext()) {
+                    return false;
+                }
+            }
+            Map.Entry<String, VerifiedClaims> entry = clockHand.next();
+            VerifiedClaims candidate = entry.getValue();
+            if (candidate.expiresAtMillis <= now || !candidate.referenced || scanned >= CLOCK_MAX_SCAN) {
+                verifiedClaims.remove(entry.getKey(), candidate);
+                return true;
+            }
+            candidate.referenced = false;
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
     /**
      * Extract all claims from token using parser API
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parseClaims(token);
     }
 
     /**
@@ -228,6 +358,33 @@ public class JwtTokenUtil {
         return extractClaim(token, claims -> claims.get("userId", Integer.class));
     }
 
+    /**
+     * Build a claims-only principal from an access token (single parse)
+     * @return null when the token lacks the access-token claims
+     */
+    public JwtPrincipal extractPrincipal(String token) {
+        return extractPrincipal(extractAllClaims(token));
+    }
+
+    public JwtPrincipal extractPrincipal(Claims claims) {
+        String subject = claims.getSubject();
+        String role = claims.get("role", String.class);
+        if (subject == null || role == null) {
+            return null;
+        }
+        try {
+            return new JwtPrincipal(
+                    Integer.valueOf(subject),
+                    claims.get("username", String.class),
+                    claims.get("email", String.class),
+                    role
+            );
+        } catch (NumberFormatException e) {
+            logger.error("Invalid subject format - not a valid user ID: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Check if token is expired based on JWT expiration claim
      */
@@ -283,7 +440,19 @@ public class JwtTokenUtil {
      */
     public boolean validateToken(String token, UserAccount userDetails) {
         try {
-            String subject = extractClaim(token, Claims::getSubject);
+            return validateToken(extractAllClaims(token), userDetails);
+        } catch (Exception e) {
+            logger.error("Access token validation error: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Same checks as validateToken(String, UserAccount) on already-verified claims (no re-parse)
+     */
+    public boolean validateToken(Claims claims, UserAccount userDetails) {
+        try {
+            String subject = claims.getSubject();
 
             // Check user status
             if (!userDetails.getStatus().getName().equals("ACTIVE")) {
@@ -303,7 +472,8 @@ public class JwtTokenUtil {
                 throw new RuntimeException("Token subject is not a valid userId");
             }
 
-            boolean notExpired = !isTokenExpired(token);
+            boolean notExpired = claims.getExpiration() != null
+                    && !claims.getExpiration().before(new Date());
 
             return subjectMatches && notExpired;
 
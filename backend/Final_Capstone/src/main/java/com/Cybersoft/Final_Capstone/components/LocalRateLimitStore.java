@@ -0,0 +1,143 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * In-memory token buckets, lock-free
+ * - Mỗi bucket chỉ là 1 AtomicLong: thời điểm bucket đầy lại (theoretical arrival time, GCRA form của token bucket)
+ *   => acquire = 1 CAS, không lock, không object mới cho key đã có
+ * - Bucket đã đầy lại (tat <= now) tương đương không tồn tại => xoá được
+ * - Xoá bằng time wheel (1 slot / giây): mỗi tick chỉ duyệt key đăng ký ở slot đó,
+ *   không quét toàn bộ map như RateLimitEntry cũ trong RefreshGuardFilter
+ */
+@Component
+@ConditionalOnProperty(name = "rate-limit.store", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalRateLimitStore implements RateLimitStore {
+
+    static final int WHEEL_SLOTS = 64;
+    private static final long TICK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    // Set by the sweeper before removing a bucket, so a racing acquire retries on a fresh one
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    @SuppressWarnings("unchecked")
+    private final Queue<String>[] wheel = new Queue[WHEEL_SLOTS];
+    private final LongSupplier clock;
+    private long lastTick;
+
+    public LocalRateLimitStore() {
+        this(System::nanoTime);
+    }
+
+    LocalRateLimitStore(LongSupplier clock) {
+        this.clock = clock;
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            wheel[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.lastTick = Math.floorDiv(clock.getAsLong(), TICK_NANOS);
+    }
+
+    @Override
+    public boolean tryAcquire(String key, int capacity, Duration window) {
+        long limit = window.toNanos();
+        long interval = limit / capacity;
+        long now = clock.getAsLong();
+
+        while (true) {
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                AtomicLong fresh = new AtomicLong(now + interval);
+                bucket = buckets.putIfAbsent(key, fresh);
+                if (bucket == null) {
+                    schedule(key, now + interval);
+                    return true;
+                }
+            }
+
+            long tat = bucket.get();
+            if (tat == EVICTED) {
+                buckets.remove(key, bucket);
+                continue;
+            }
+            long next = Math.max(tat, now) + interval;
+            if (next - now > limit) {
+                return false;
+            }
+            if (bucket.compareAndSet(tat, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Advance the wheel to the current second and drop buckets that are full again
+     */
+    @Scheduled(fixedDelay = 1000)
+    public synchronized void expireIdleBuckets() {
+        long now = clock.getAsLong();
+        long currentTick = Math.floorDiv(now, TICK_NANOS);
+        // After one full revolution every slot has been visited
+        long fromTick = Math.max(lastTick + 1, currentTick - WHEEL_SLOTS + 1);
+
+        int evicted = 0;
+        for (long tick = fromTick; tick <= currentTick; tick++) {
+            evicted += sweep(slot(tick), now);
+        }
+        lastTick = currentTick;
+
+        if (evicted > 0) {
+            log.debug("Rate limit buckets expired: {}, live: {}", evicted, buckets.size());
+        }
+    }
+
+    private int sweep(int slot, long now) {
+        Queue<String> keys = wheel[slot];
+        // Only the keys queued before this sweep: re-queued ones (same slot, next revolution) go to the tail
+        int pending = keys.size();
+        int evicted = 0;
+        for (int i = 0; i < pending; i++) {
+            String key = keys.poll();
+            if (key == null) {
+                break;
+            }
+            AtomicLong bucket = buckets.get(key);
+            if (bucket == null) {
+                continue;
+            }
+            long tat = bucket.get();
+            if (tat - now <= 0 && bucket.compareAndSet(tat, EVICTED)) {
+                buckets.remove(key, bucket);
+                evicted++;
+            } else {
+                schedule(key, bucket.get());
+            }
+        }
+        return evicted;
+    }
+
+    private void schedule(String key, long tat) {
+        // +1: check in the tick after the bucket is full again
+        wheel[slot(Math.floorDiv(tat, TICK_NANOS) + 1)].add(key);
+    }
+
+    private static int slot(long tick) {
+        return (int) Math.floorMod(tick, (long) WHEEL_SLOTS);
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,165 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import com.Cybersoft.Final_Capstone.repository.BookingRepository;
+import com.Cybersoft.Final_Capstone.repository.PaymentWebhookEventRepository;
+import com.Cybersoft.Final_Capstone.repository.PromotionUsageRepository;
+import com.Cybersoft.Final_Capstone.repository.TokenRepository;
+import com.Cybersoft.Final_Capstone.repository.TransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Query plan audit mode (db.query-audit.enabled=true)
+ * - Gọi các query nóng (payment init, webhook, booking list, scheduled jobs) với tham số mẫu trong 1 transaction
+ *   bị rollback, SqlCapture ghi lại SQL Hibernate thực sự gửi đi => EXPLAIN trên schema local
+ * - Không có bản SQL chép tay: sửa @Query / derived query là audit thấy ngay SQL mới
+ * - Full scan = access type ALL mà không có possible_keys, tức là thiếu index hẳn
+ *   (type ALL có possible_keys chỉ là optimizer chọn scan vì bảng dev quá nhỏ)
+ * - fail-on-full-scan=true: ném exception lúc startup => context test fail
+ */
+@Component
+@ConditionalOnProperty(name = "db.query-audit.enabled", havingValue = "true")
+@Slf4j
+public class QueryPlanAuditor {
+
+    private static final int SAMPLE_ID = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlCapture sqlCapture;
+    private final TransactionRepository transactionRepository;
+    private final PromotionUsageRepository promotionUsageRepository;
+    private final BookingRepository bookingRepository;
+    private final TokenRepository tokenRepository;
+    private final PaymentWebhookEventRepository webhookEventRepository;
+    private final boolean failOnFullScan;
+    private final Set<String> ignoredTables;
+
+    public QueryPlanAuditor(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            SqlCapture sqlCapture,
+                            TransactionRepository transactionRepository,
+                            PromotionUsageRepository promotionUsageRepository,
+                            BookingRepository bookingRepository,
+                            TokenRepository tokenRepository,
+                            PaymentWebhookEventRepository webhookEventRepository,
+                            @Value("${db.query-audit.fail-on-full-scan:true}") boolean failOnFullScan,
+                            @Value("${db.query-audit.ignored-tables:status,role}") Set<String> ignoredTables) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.sqlCapture = sqlCapture;
+        this.transactionRepository = transactionRepository;
+        this.promotionUsageRepository = promotionUsageRepository;
+        this.bookingRepository = bookingRepository;
+        this.tokenRepository = tokenRepository;
+        this.webhookEventRepository = webhookEventRepository;
+        this.failOnFullScan = failOnFullScan;
+        this.ignoredTables = ignoredTables;
+    }
+
+    /**
+     * repository method -> call with sample params
+     */
+    Map<String, Runnable> hotQueries() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Runnable> queries = new LinkedHashMap<>();
+        queries.put("TransactionRepository.findByOrderId",
+                () -> transactionRepository.findByOrderId(String.valueOf(SAMPLE_ID)));
+        queries.put("TransactionRepository.findByBookingId",
+                () -> transactionRepository.findByBookingId(SAMPLE_ID));
+        queries.put("TransactionRepository.findByBookingIdAndPaymentStatus",
+                () -> transactionRepository.findByBookingIdAndPaymentStatus(SAMPLE_ID, "PENDING"));
+        queries.put("PromotionUsageRepository.findByBookingId",
+                () -> promotionUsageRepository.findByBookingId(SAMPLE_ID));
+        queries.put("PromotionUsageRepository.findRefundableByBookingIds",
+                () -> promotionUsageRepository.findRefundableByBookingIds(List.of(1, 2, 3)));
+        queries.put("BookingRepository.countConflictingConfirmedBookings",
+                () -> bookingRepository.countConflictingConfirmedBookings(SAMPLE_ID, now, now.plusDays(2)));
+        queries.put("BookingRepository.findByUserId",
+                () -> bookingRepository.findByUserId(SAMPLE_ID));
+        queries.put("BookingRepository.lockStatusById",
+                () -> bookingRepository.lockStatusById(SAMPLE_ID));
+        queries.put("BookingRepository.lockExpiredUnpaidIds",
+                () -> bookingRepository.lockExpiredUnpaidIds(now.minusHours(24), 500));
+        queries.put("BookingRepository.lockToCompleteIds",
+                () -> bookingRepository.lockToCompleteIds(now, 500));
+        queries.put("TokenRepository.findValidTokenByHash",
+                () -> tokenRepository.findValidTokenByHash("x", Instant.now()));
+        queries.put("TokenRepository.existsByJtiAndValid",
+                () -> tokenRepository.existsByJtiAndValid("x", Instant.now()));
+        queries.put("PaymentWebhookEventRepository.findRetryableIds",
+                () -> webhookEventRepository.findRetryableIds(30, 100));
+        return queries;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void audit() {
+        Map<String, Runnable> hotQueries = hotQueries();
+        List<String> violations = new ArrayList<>();
+
+        hotQueries.forEach((name, call) -> {
+            List<String> statements = transactionTemplate.execute(status -> {
+                status.setRollbackOnly(); // FOR UPDATE locks taken by the sample call are released right away
+                return sqlCapture.capture(call);
+            });
+            if (statements == null || statements.isEmpty()) {
+                log.warn("⚠️ No SQL captured for {}", name);
+                violations.add(name + " -> no SQL captured");
+                return;
+            }
+
+            for (String sql : statements) {
+                List<String> scanned = fullScanTables(jdbcTemplate.queryForList("EXPLAIN " + sql), ignoredTables);
+                if (scanned.isEmpty()) {
+                    log.debug("✅ Query plan OK: {}: {}", name, sql);
+                } else {
+                    log.warn("⚠️ Full table scan in {} on {}: {}", name, scanned, sql);
+                    violations.add(name + " -> " + scanned);
+                }
+            }
+        });
+
+        log.info("Query plan audit: {} hot queries, {} with full table scans", hotQueries.size(), violations.size());
+
+        if (failOnFullScan && !violations.isEmpty()) {
+            throw new IllegalStateException("Full table scans in hot queries: " + violations);
+        }
+    }
+
+    /**
+     * @return tables the plan reads with type=ALL and no candidate index
+     */
+    static List<String> fullScanTables(List<Map<String, Object>> planRows, Set<String> ignoredTables) {
+        List<String> tables = new ArrayList<>();
+        for (Map<String, Object> row : planRows) {
+            Object type = row.get("type");
+            Object table = row.get("table");
+            if (type == null || table == null || !"ALL".equalsIgnoreCase(type.toString())) {
+                continue;
+            }
+            if (row.get("possible_keys") != null) {
+                continue;
+            }
+            String tableName = table.toString().toLowerCase(Locale.ROOT);
+            if (!ignoredTables.contains(tableName)) {
+                tables.add(tableName);
+            }
+        }
+        return tables;
+    }
+}
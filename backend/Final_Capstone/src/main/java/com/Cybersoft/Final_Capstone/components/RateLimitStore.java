@@ -0,0 +1,19 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import java.time.Duration;
+
+/**
+ * Token bucket storage behind RateLimitFilter
+ * - LocalRateLimitStore: in-memory, lock-free (rate-limit.store=local)
+ * - JdbcRateLimitStore: shared table, limit chung cho mọi instance (rate-limit.store=jdbc)
+ *
+ * Bucket đầy = capacity request, refill 1 token mỗi window / capacity
+ */
+public interface RateLimitStore {
+
+    /**
+     * Take one token from the bucket identified by key
+     * @return false when the bucket is empty (caller answers 429)
+     */
+    boolean tryAcquire(String key, int capacity, Duration window);
+}
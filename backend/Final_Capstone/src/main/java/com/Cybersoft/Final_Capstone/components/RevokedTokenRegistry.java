@@ -0,0 +1,168 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import com.Cybersoft.Final_Capstone.events.RefreshTokensRevokedEvent;
+import com.Cybersoft.Final_Capstone.repository.TokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory denylist of revoked refresh-token JTIs
+ * - Bloom filter: mọi JTI đã revoke mà chưa hết hạn (load lúc startup, rebuild định kỳ để bỏ key cũ)
+ * - Exact set: JTI revoke trong recent window => trả lời chắc chắn, không cần DB (reuse ngay sau rotate/logout)
+ * - Bloom miss = chắc chắn chưa revoke => "token hợp lệ" không cần đọc DB; bloom hit => hỏi DB (false positive)
+ * - Revocation ở instance khác được kéo về bằng sync (revoked_at > lần sync trước)
+ *
+ * NOTE: Chỉ là fast path. Rotation vẫn claim token bằng conditional UPDATE (TokenRepository.revokeIfActive)
+ */
+@Component
+@Slf4j
+public class RevokedTokenRegistry {
+
+    // revoked_at is set before commit, so re-read a little behind the last sync point
+    private static final long SYNC_OVERLAP_SECONDS = 30;
+
+    private final TokenRepository tokenRepository;
+    private final long expectedRevocations;
+    private final double falsePositiveRate;
+    private final long recentWindowMillis;
+
+    private final Map<String, Long> recent = new ConcurrentHashMap<>(); // jti -> revoked at (local millis)
+    private volatile BloomFilter bloom;
+    private volatile Instant lastSync;
+    private volatile boolean ready = false;
+
+    private final Counter recentHits;
+    private final Counter bloomMisses;
+    private final Counter confirmedHits;
+    private final Counter falsePositives;
+
+    public RevokedTokenRegistry(TokenRepository tokenRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${jwt.revocation-filter.expected-revocations:100000}") long expectedRevocations,
+                                @Value("${jwt.revocation-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                @Value("${jwt.revocation-filter.recent-window-seconds:3600}") long recentWindowSeconds) {
+        this.tokenRepository = tokenRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.falsePositiveRate = falsePositiveRate;
+        this.recentWindowMillis = recentWindowSeconds * 1000;
+        this.recentHits = lookupCounter(meterRegistry, "recent");
+        this.bloomMisses = lookupCounter(meterRegistry, "bloom-miss");
+        this.confirmedHits = lookupCounter(meterRegistry, "db-confirmed");
+        this.falsePositives = lookupCounter(meterRegistry, "false-positive");
+    }
+
+    /**
+     * Build the bloom filter from every revoked, not yet expired token
+     * Also runs periodically so expired/deleted JTIs stop counting against the false-positive rate
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${jwt.revocation-filter.rebuild-delay-ms:3600000}",
+            initialDelayString = "${jwt.revocation-filter.rebuild-delay-ms:3600000}")
+    public synchronized void rebuild() {
+        try {
+            Instant syncPoint = Instant.now();
+            List<String> jtis = tokenRepository.findRevokedUnexpiredJtis(syncPoint);
+
+            BloomFilter fresh = BloomFilter.create(Math.max(expectedRevocations, jtis.size() * 2L), falsePositiveRate);
+            jtis.forEach(fresh::put);
+            // Revocations that arrived while loading
+            recent.keySet().forEach(fresh::put);
+
+            bloom = fresh;
+            lastSync = syncPoint;
+            ready = true;
+
+            log.info("Revoked token filter built: {} JTIs", jtis.size());
+        } catch (Exception e) {
+            // Keep the previous filter if there is one; otherwise every lookup goes to the DB
+            log.error("Failed to build revoked token filter: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Pull revocations made by other instances (and bulk UPDATEs that did not publish JTIs)
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation-filter.sync-delay-ms:5000}")
+    public void sync() {
+        if (!ready) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            List<String> jtis = tokenRepository.findJtisRevokedSince(lastSync.minusSeconds(SYNC_OVERLAP_SECONDS));
+            jtis.forEach(this::markRevoked);
+            lastSync = now;
+
+            long cutoff = System.currentTimeMillis() - recentWindowMillis;
+            recent.values().removeIf(revokedAt -> revokedAt < cutoff);
+        } catch (Exception e) {
+            log.warn("Revoked token filter sync failed: {}", e.getMessage());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTokensRevoked(RefreshTokensRevokedEvent e) {
+        if (e.jtis() != null) {
+            e.jtis().forEach(this::markRevoked);
+        }
+    }
+
+    public void markRevoked(String jti) {
+        if (jti == null) {
+            return;
+        }
+        recent.put(jti, System.currentTimeMillis());
+        BloomFilter current = bloom;
+        if (current != null) {
+            current.put(jti);
+        }
+    }
+
+    /**
+     * @return true if the refresh token with this JTI has been revoked
+     *         (DB is read only on a bloom hit outside the recent window, or before the filter is built)
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        if (recent.containsKey(jti)) {
+            recentHits.increment();
+            return true;
+        }
+        BloomFilter current = bloom;
+        boolean filtered = ready && current != null;
+        if (filtered && !current.mightContain(jti)) {
+            bloomMisses.increment();
+            return false;
+        }
+
+        boolean revoked = tokenRepository.existsByJtiAndRevokedTrue(jti);
+        if (revoked) {
+            confirmedHits.increment();
+            markRevoked(jti);
+        } else if (filtered) {
+            falsePositives.increment();
+        }
+        return revoked;
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("auth.revocation.lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
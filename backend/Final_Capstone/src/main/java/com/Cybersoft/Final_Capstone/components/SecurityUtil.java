@@ -1,20 +1,54 @@
 package com.Cybersoft.Final_Capstone.components;
 
 import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.repository.UserAccountRepository;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class SecurityUtil {
+
+    @Autowired
+    private UserAccountRepository userAccountRepository;
+
+    @Autowired
+    private UserPrincipalCache userPrincipalCache;
+
     public UserAccount getLoggedInUser() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        if (authentication != null &&
-                authentication.getPrincipal() instanceof UserAccount selectedUser) {
-            if(!selectedUser.getStatus().getName().equals("ACTIVE")) {
-                return null;
-            }
-            return selectedUser;
+        if (authentication == null) {
+            return null;
+        }
+
+        UserAccount selectedUser = null;
+        if (authentication.getPrincipal() instanceof UserAccount user) {
+            selectedUser = user;
+        } else if (authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal) {
+            // Claims-only mode: load entity lazily, only for callers that really need it
+            selectedUser = loadUser(jwtPrincipal.userId());
+        }
+
+        if (selectedUser == null || !selectedUser.getStatus().getName().equals("ACTIVE")) {
+            return null;
+        }
+        return selectedUser;
+    }
+
+    /**
+     * Id of the authenticated user without loading the entity (works in both principal modes)
+     */
+    public Integer getLoggedInUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            return null;
+        }
+        if (authentication.getPrincipal() instanceof UserAccount user) {
+            return user.getId();
+        }
+        if (authentication.getPrincipal() instanceof JwtPrincipal jwtPrincipal) {
+            return jwtPrincipal.userId();
         }
         return null;
     }
@@ -31,4 +65,17 @@ public class SecurityUtil {
         }
         return currentUser.getId().equals(requestedUserId);
     }
+
+    private UserAccount loadUser(Integer userId) {
+        if (userId == null) {
+            return null;
+        }
+        UserAccount cached = userPrincipalCache.get(userId);
+        if (cached != null) {
+            return cached;
+        }
+        UserAccount loaded = userAccountRepository.findById(userId).orElse(null);
+        userPrincipalCache.put(loaded);
+        return loaded;
+    }
 }
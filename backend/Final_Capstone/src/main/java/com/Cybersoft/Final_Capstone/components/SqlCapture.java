@@ -0,0 +1,102 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Query plan audit mode only (db.query-audit.enabled=true): records the SQL Hibernate really sends
+ * - Bọc DataSource: PreparedStatement được execute trong capture(...) trên thread hiện tại => lưu SQL kèm giá trị bind
+ *   (MySQL Connector/J render statement đã bind thành SQL hoàn chỉnh) => EXPLAIN được trực tiếp
+ * - Ngoài capture(...) chỉ là delegate, và bean này không tồn tại khi audit mode tắt
+ */
+@Component
+@ConditionalOnProperty(name = "db.query-audit.enabled", havingValue = "true")
+public class SqlCapture implements BeanPostProcessor {
+
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate", "executeLargeUpdate");
+
+    private final ThreadLocal<List<String>> captured = new ThreadLocal<>();
+
+    /**
+     * @return SQL of every prepared statement executed by work on this thread, in order
+     */
+    public List<String> capture(Runnable work) {
+        List<String> statements = new ArrayList<>();
+        captured.set(statements);
+        try {
+            work.run();
+        } finally {
+            captured.remove();
+        }
+        return statements;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+            return proxy(DataSource.class, dataSource, (method, result) ->
+                    result instanceof Connection connection ? proxy(Connection.class, connection, this::onConnectionCall) : result);
+        }
+        return bean;
+    }
+
+    private Object onConnectionCall(Method method, Object result) {
+        if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+            return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                    (self, call, args) -> {
+                        List<String> statements = captured.get();
+                        if (statements != null && args == null && EXECUTE_METHODS.contains(call.getName())) {
+                            statements.add(render(statement));
+                        }
+                        return invoke(self, call, args, statement);
+                    });
+        }
+        return result;
+    }
+
+    /**
+     * "com.mysql.cj.jdbc.ClientPreparedStatement: SELECT ... WHERE id = 1" -> "SELECT ... WHERE id = 1"
+     */
+    static String render(PreparedStatement statement) throws SQLException {
+        String text = statement.unwrap(PreparedStatement.class).toString();
+        int start = text.indexOf(": ");
+        return start < 0 ? text : text.substring(start + 2);
+    }
+
+    private interface ResultWrapper {
+        Object wrap(Method method, Object result) throws SQLException;
+    }
+
+    private static <T> T proxy(Class<T> type, T target, ResultWrapper wrapper) {
+        return type.cast(Proxy.newProxyInstance(SqlCapture.class.getClassLoader(), new Class<?>[]{type},
+                (self, method, args) -> wrapper.wrap(method, invoke(self, method, args, target))));
+    }
+
+    private static Object invoke(Object self, Method method, Object[] args, Object target) throws Throwable {
+        // Identity semantics: the DataSource is a key in TransactionSynchronizationManager
+        switch (method.getName()) {
+            case "equals":
+                return self == args[0];
+            case "hashCode":
+                return System.identityHashCode(self);
+            default:
+                try {
+                    return method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Fixed pool of locks, a key always maps to the same stripe
+ * - Cùng key -> loại trừ lẫn nhau
+ * - Khác key -> chạy song song (trừ khi trùng stripe, xác suất 1/stripes)
+ * Thay cho synchronized toàn cục khi chỉ cần khóa theo từng entity (vd: booking)
+ */
+public final class StripedLocks {
+
+    private final ReentrantLock[] locks;
+
+    public StripedLocks(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be > 0");
+        }
+        this.locks = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    public <T> T withLock(Object key, Supplier<T> action) {
+        ReentrantLock lock = lockFor(key);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int stripeOf(Object key) {
+        int h = key == null ? 0 : key.hashCode();
+        // Spread bits so sequential ids don't cluster when stripes is not a power of two
+        h ^= (h >>> 16);
+        return Math.floorMod(h, locks.length);
+    }
+
+    private ReentrantLock lockFor(Object key) {
+        return locks[stripeOf(key)];
+    }
+}
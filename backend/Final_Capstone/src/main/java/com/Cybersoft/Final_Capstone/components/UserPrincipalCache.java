@@ -0,0 +1,108 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.events.UserAccountChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded, TTL-evicting cache of authenticated principals keyed by user id
+ * - JwtTokenFilter đọc từ cache trước, chỉ gọi userDetailsService khi miss/hết hạn
+ * - Evict ngay khi UserAccountChangedEvent commit (profile, role, status...)
+ * - TTL giới hạn độ "stale" cho các thay đổi ngoài app (sửa trực tiếp DB)
+ */
+@Component
+@Slf4j
+public class UserPrincipalCache {
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttlNanos;
+    private final int maxSize;
+
+    public UserPrincipalCache(@Value("${jwt.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                              @Value("${jwt.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlNanos = ttlSeconds * 1_000_000_000L;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return cached principal, or null when missing/expired
+     */
+    public UserAccount get(Integer userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired(System.nanoTime())) {
+            entries.remove(userId, entry);
+            return null;
+        }
+        return entry.user();
+    }
+
+    public void put(UserAccount user) {
+        if (user == null || user.getId() == null || ttlNanos <= 0 || maxSize <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize && !entries.containsKey(user.getId())) {
+            makeRoom();
+        }
+        entries.put(user.getId(), new Entry(user, System.nanoTime() + ttlNanos));
+    }
+
+    public void evict(Integer userId) {
+        if (userId != null) {
+            entries.remove(userId);
+        }
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUserAccountChanged(UserAccountChangedEvent e) {
+        if (e.userId() == null) {
+            clear();
+        } else {
+            evict(e.userId());
+        }
+    }
+
+    /**
+     * Drop expired entries first; if still full, drop the entry closest to expiry
+     */
+    private void makeRoom() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> entry.isExpired(now));
+        if (entries.size() < maxSize) {
+            return;
+        }
+
+        Integer oldestId = null;
+        long oldestExpiry = Long.MAX_VALUE;
+        for (Map.Entry<Integer, Entry> candidate : entries.entrySet()) {
+            if (oldestId == null || candidate.getValue().expiresAt() - oldestExpiry < 0) {
+                oldestId = candidate.getKey();
+                oldestExpiry = candidate.getValue().expiresAt();
+            }
+        }
+        if (oldestId != null) {
+            entries.remove(oldestId);
+            log.debug("Principal cache full ({}), evicted user {}", maxSize, oldestId);
+        }
+    }
+
+    private record Entry(UserAccount user, long expiresAt) {
+        boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.Cybersoft.Final_Capstone.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Outbound HTTP (PayOS, Google, Facebook) pool + timeout settings
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "http-client")
+public class HttpClientProperties {
+    // Pool size across all targets / per target host (route)
+    private int maxTotal = 100;
+    private int maxPerRoute = 20;
+
+    // Connect = TCP/TLS handshake, read = waiting for response bytes,
+    // connection-request = waiting for a free connection from the pool
+    private long connectTimeoutMs = 3000;
+    private long readTimeoutMs = 10000;
+    private long connectionRequestTimeoutMs = 2000;
+
+    // Keep-alive cap and background eviction of idle connections
+    private long keepAliveSeconds = 30;
+    private long idleEvictSeconds = 30;
+}
@@ -0,0 +1,40 @@
+package com.Cybersoft.Final_Capstone.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.orm.jpa.support.OpenEntityManagerInViewInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * NOTE: Open-in-view, trừ các endpoint gọi service bên ngoài giữa các transaction
+ * - spring.jpa.open-in-view=false tắt interceptor mặc định của Spring Boot, interceptor này đăng ký lại cho mọi path
+ *   (mapper hiện tại vẫn lazy-load sau khi service trả về)
+ * - NO_OPEN_IN_VIEW: request không có EntityManager gắn với thread => mỗi TransactionTemplate phase
+ *   trả JDBC connection ngay khi commit, không giữ connection trong lúc chờ PayOS
+ */
+@Configuration
+@RequiredArgsConstructor
+public class OpenEntityManagerInViewConfig implements WebMvcConfigurer {
+
+    private static final String[] NO_OPEN_IN_VIEW = {
+            "/transactions/init" // TransactionServiceImp.initPayment: 2 tx ngắn quanh PayOS call
+    };
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Bean
+    public OpenEntityManagerInViewInterceptor openEntityManagerInViewInterceptor() {
+        OpenEntityManagerInViewInterceptor interceptor = new OpenEntityManagerInViewInterceptor();
+        interceptor.setEntityManagerFactory(entityManagerFactory);
+        return interceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addWebRequestInterceptor(openEntityManagerInViewInterceptor())
+                .excludePathPatterns(NO_OPEN_IN_VIEW);
+    }
+}
@@ -0,0 +1,29 @@
+package com.Cybersoft.Final_Capstone.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * rate-limit.* - token bucket per endpoint (RateLimitFilter)
+ * capacity request burst, refill đều trong window-seconds
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+    // local = in-memory per instance, jdbc = shared rate_limit_bucket table (multi-instance)
+    private String store = "local";
+    private Map<String, Policy> policies = new LinkedHashMap<>();
+
+    @Data
+    public static class Policy {
+        private String method = "POST";
+        private String path;
+        private int capacity;
+        private long windowSeconds;
+    }
+}
@@ -1,10 +1,12 @@
 package com.Cybersoft.Final_Capstone.config;
 
 import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.components.BoundedPasswordEncoder;
 import com.Cybersoft.Final_Capstone.repository.UserAccountRepository;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -29,9 +31,35 @@ public class SecurityConfig {
 
     private static final Logger logger = LoggerFactory.getLogger(SecurityConfig.class);
 
-    @Bean
+    // 0 = half of the available cores
+    @Value("${security.password-hashing.threads:0}")
+    private int hashingThreads;
+
+    // 0 = 2 x threads; always capped to a quarter of the Tomcat request threads
+    @Value("${security.password-hashing.queue-capacity:0}")
+    private int hashingQueueCapacity;
+
+    @Value("${security.password-hashing.wait-timeout-ms:500}")
+    private long hashingWaitTimeoutMs;
+
+    @Value("${server.tomcat.threads.max:200}")
+    private int tomcatMaxThreads;
+
+    /**
+     * BCrypt runs on its own bounded pool (BoundedPasswordEncoder) so login bursts cannot take every core
+     * Request threads parked on hashing = threads + queue at most, well below server.tomcat.threads.max,
+     * everything beyond that is rejected immediately (503)
+     */
+    @Bean(destroyMethod = "shutdown")
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        int threads = hashingThreads > 0
+                ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int queueCapacity = hashingQueueCapacity > 0 ? hashingQueueCapacity : threads * 2;
+        queueCapacity = Math.max(1, Math.min(queueCapacity, tomcatMaxThreads / 4 - threads));
+        logger.info("Password hashing pool: {} threads, queue {}, wait timeout {} ms",
+                threads, queueCapacity, hashingWaitTimeoutMs);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), threads, queueCapacity, hashingWaitTimeoutMs);
     }
 
     @Bean
@@ -39,41 +67,11 @@ public class SecurityConfig {
         return subject -> {
             logger.info("UserDetailsService: Loading user with subject={}", subject);
 
-            // 1) Priority: Try to parse subject as userId (Integer) - NEW TOKENS
-            if (subject != null && !subject.isEmpty()) {
-                try {
-                    Integer userId = Integer.parseInt(subject);
-                    Optional<UserAccount> userById = userAccountRepository.findById(userId);
-                    if (userById.isPresent()) {
-                        logger.info("✅ User loaded by ID: {}", userId);
-                        return userById.get();
-                    }
-                    logger.warn("User not found by ID: {}", userId);
-                } catch (NumberFormatException e) {
-                    // Subject is not a number, continue with legacy lookups
-                    logger.debug("Subject '{}' is not a numeric ID, trying legacy lookups", subject);
-                }
-            }
-
-            // 2) Legacy fallback: Find by email
-            Optional<UserAccount> userByEmail = userAccountRepository.findByEmail(subject);
-            if (userByEmail.isPresent()) {
-                logger.info("✅ User loaded by email (legacy): {}", subject);
-                return userByEmail.get();
-            }
-
-            // 3) Legacy fallback: Find by username
-            Optional<UserAccount> userByUsername = userAccountRepository.findByUsername(subject);
-            if (userByUsername.isPresent()) {
-                logger.info("✅ User loaded by username (legacy): {}", subject);
-                return userByUsername.get();
-            }
-
-            // 4) Legacy fallback: Find by phone (if available)
-            Optional<UserAccount> userByPhone = userAccountRepository.findByPhone(subject);
-            if (userByPhone.isPresent()) {
-                logger.info("✅ User loaded by phone (legacy): {}", subject);
-                return userByPhone.get();
+            // One query: id (new tokens) or legacy email / username / phone subject, same priority as before
+            Optional<UserAccount> user = userAccountRepository.resolveSubject(subject);
+            if (user.isPresent()) {
+                logger.info("✅ User loaded for subject: {}", subject);
+                return user.get();
             }
 
             // If user not found by any method, throw exception
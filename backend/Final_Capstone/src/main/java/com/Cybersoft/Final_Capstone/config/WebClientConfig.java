@@ -1,25 +1,54 @@
 package com.Cybersoft.Final_Capstone.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * NOTE: Google/Facebook WebClients share one JDK HttpClient (connection pool + keep-alive built in)
+ * - Dùng WebClient.Builder của Spring Boot -> có metric "http.client.requests" như RestTemplate
+ * - Connect/read timeout lấy từ http-client.*
+ */
 @Configuration
+@RequiredArgsConstructor
 public class WebClientConfig {
 
+    private final HttpClientProperties httpClientProperties;
+
+    @Bean
+    public HttpClient outboundJdkHttpClient() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(httpClientProperties.getConnectTimeoutMs()))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
     @Bean
-    public WebClient userInfoClient() {
+    public WebClient userInfoClient(WebClient.Builder builder, HttpClient outboundJdkHttpClient) {
         // Use Google's userinfo endpoint directly
-        return WebClient.builder()
+        return builder
+                .clientConnector(connector(outboundJdkHttpClient))
                 .baseUrl("https://www.googleapis.com")
                 .build();
     }
 
     @Bean
-    public WebClient facebookUserInfoClient() {
+    public WebClient facebookUserInfoClient(WebClient.Builder builder, HttpClient outboundJdkHttpClient) {
         // Use Facebook's graph API endpoint
-        return WebClient.builder()
+        return builder
+                .clientConnector(connector(outboundJdkHttpClient))
                 .baseUrl("https://graph.facebook.com")
                 .build();
     }
+
+    private JdkClientHttpConnector connector(HttpClient httpClient) {
+        JdkClientHttpConnector connector = new JdkClientHttpConnector(httpClient);
+        connector.setReadTimeout(Duration.ofMillis(httpClientProperties.getReadTimeoutMs()));
+        return connector;
+    }
 }
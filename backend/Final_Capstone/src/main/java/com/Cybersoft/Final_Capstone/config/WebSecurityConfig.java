@@ -1,9 +1,14 @@
 package com.Cybersoft.Final_Capstone.config;
 
 import com.Cybersoft.Final_Capstone.components.JwtTokenUtil;
+import com.Cybersoft.Final_Capstone.components.RateLimitStore;
+import com.Cybersoft.Final_Capstone.components.RevokedTokenRegistry;
+import com.Cybersoft.Final_Capstone.components.UserPrincipalCache;
 import com.Cybersoft.Final_Capstone.filter.JwtTokenFilter;
+import com.Cybersoft.Final_Capstone.filter.RateLimitFilter;
 import com.Cybersoft.Final_Capstone.filter.RefreshGuardFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -26,14 +31,21 @@ public class WebSecurityConfig {
     private final CorsConfigurationSource corsConfigurationSource;
     private final UserDetailsService userDetailsService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final UserPrincipalCache userPrincipalCache;
     private final CorsProperties corsProperties;
+    private final RevokedTokenRegistry revokedTokenRegistry;
+    private final RateLimitProperties rateLimitProperties;
+    private final RateLimitStore rateLimitStore;
+
+    @Value("${jwt.claims-only-principal:false}")
+    private boolean claimsOnlyPrincipal;
 
     /**
      * Create JwtTokenFilter bean for manual registration in SecurityFilterChain
      */
     @Bean
     public JwtTokenFilter jwtTokenFilter() {
-        return new JwtTokenFilter(userDetailsService, jwtTokenUtil);
+        return new JwtTokenFilter(userDetailsService, jwtTokenUtil, userPrincipalCache, claimsOnlyPrincipal);
     }
 
     /**
@@ -41,7 +53,15 @@ public class WebSecurityConfig {
      */
     @Bean
     public RefreshGuardFilter refreshGuardFilter() {
-        return new RefreshGuardFilter(corsProperties);
+        return new RefreshGuardFilter(corsProperties, jwtTokenUtil, revokedTokenRegistry);
+    }
+
+    /**
+     * Create RateLimitFilter bean for manual registration in SecurityFilterChain
+     */
+    @Bean
+    public RateLimitFilter rateLimitFilter() {
+        return new RateLimitFilter(rateLimitProperties, rateLimitStore);
     }
 
     @Bean
@@ -145,7 +165,10 @@ public class WebSecurityConfig {
                 // ========================================
                 // 7. Add Filters (manual registration)
                 // ========================================
-        // RefreshGuardFilter runs FIRST to protect /auth/refresh
+        // RateLimitFilter runs FIRST so throttled requests cost no JWT parsing / DB reads
+        http.addFilterBefore(rateLimitFilter(), UsernamePasswordAuthenticationFilter.class);
+
+        // RefreshGuardFilter runs next to protect /auth/refresh
         http.addFilterBefore(refreshGuardFilter(), UsernamePasswordAuthenticationFilter.class);
         
         // JwtTokenFilter runs AFTER RefreshGuardFilter for token validation
@@ -95,9 +95,9 @@ public final class PublicEndpoints {
             "/property/search",         // Search properties (POST allowed in isPublicEndpoint)
             "/property/top7",           // Top 7 properties
             "/property/top4/type/",     // Top 4 by type (prefix match)
-            // Note: /property/{id} (where id is number) is handled by regex in isPublicEndpoint()
+            // Note: /property/{id} (where id is number) is handled by PROPERTY_DETAIL_PATTERN
             // Pattern: /property/\d+ (e.g., /property/123, /property/456)
-            "/property/"                // Property detail by ID (handled separately by regex)
+            "/property/"                // Property detail by ID (also covered by PROPERTY_DETAIL_PATTERN)
     ));
 
     // ========================================
@@ -137,12 +137,48 @@ public final class PublicEndpoints {
      * - /properties, /locations, /cities (GET) - Browse public content
      */
 
+    // ========================================
+    // PRECOMPILED MATCHERS
+    // ========================================
+
+    /**
+     * Pattern for property detail: /property/{id} where id is a number
+     */
+    private static final String PROPERTY_DETAIL_PATTERN = "/property/" + PathTrie.DIGITS;
+
+    // Any method: OAuth endpoints (prefix match)
+    private static final PathTrie ANY_METHOD_MATCHER = new PathTrie();
+    // GET: auth GET (exact), property endpoints, public content + system prefixes
+    private static final PathTrie GET_MATCHER = new PathTrie();
+    // POST: auth POST (exact) + property search
+    private static final PathTrie POST_MATCHER = new PathTrie();
+
+    static {
+        OAUTH_ENDPOINTS.forEach(ANY_METHOD_MATCHER::addPrefix);
+
+        AUTH_GET_ENDPOINTS.forEach(GET_MATCHER::addExact);
+        for (String endpoint : PUBLIC_PROPERTY_ENDPOINTS) {
+            GET_MATCHER.addExact(endpoint);
+            // Prefix match for endpoints ending with "/" (e.g. /property/top4/type/*)
+            if (endpoint.endsWith("/")) {
+                GET_MATCHER.addPrefix(endpoint);
+            }
+        }
+        GET_MATCHER.addExact(PROPERTY_DETAIL_PATTERN);
+        PUBLIC_CONTENT_PREFIXES.forEach(GET_MATCHER::addPrefix);
+        SYSTEM_ENDPOINTS.forEach(GET_MATCHER::addPrefix);
+
+        AUTH_POST_ENDPOINTS.forEach(POST_MATCHER::addExact);
+        POST_MATCHER.addExact("/property/search");
+    }
+
     // ========================================
     // HELPER METHODS
     // ========================================
 
     /**
      * Check if endpoint is public (bypasses authentication)
+     * Uses tries built once at class load - no regex, no toLowerCase() allocation per request
      *
      * @param method HTTP method (GET, POST, etc.)
      * @param path   Request path (/auth/login, /properties, etc.)
@@ -153,64 +189,19 @@ public final class PublicEndpoints {
             return false;
         }
 
-        method = method.toUpperCase();
-        path = path.toLowerCase();
-
-        // 1. Check exact POST matches
-        if ("POST".equals(method) && AUTH_POST_ENDPOINTS.contains(path)) {
+        // 1. OAuth endpoints (any method)
+        if (ANY_METHOD_MATCHER.matches(path)) {
             return true;
         }
 
-        // 2. Check exact GET matches
-        if ("GET".equals(method) && AUTH_GET_ENDPOINTS.contains(path)) {
-            return true;
+        // 2. GET: auth GET, public property endpoints, public content, system endpoints
+        if ("GET".equalsIgnoreCase(method)) {
+            return GET_MATCHER.matches(path);
         }
 
-        // 3. Check OAuth endpoints (any method)
-        for (String endpoint : OAUTH_ENDPOINTS) {
-            if (path.startsWith(endpoint)) {
-                return true;
-            }
-        }
-
-        // 4. Check specific public property endpoints
-        if ("GET".equals(method)) {
-            // Exact matches
-            for (String endpoint : PUBLIC_PROPERTY_ENDPOINTS) {
-                if (path.equals(endpoint)) {
-                    return true;
-                }
-                // Prefix match for /property/top4/type/*
-                if (endpoint.endsWith("/") && path.startsWith(endpoint)) {
-                    return true;
-                }
-            }
-
-            // Special: /property/{id} where id is a number (property detail)
-            if (path.matches("/property/\\d+")) {
-                return true;
-            }
-        }
-
-        // 5. POST /property/search is also public
-        if ("POST".equals(method) && path.equals("/property/search")) {
-            return true;
-        }
-
-        // 6. Check public content prefixes (GET only for safety)
-        if ("GET".equals(method)) {
-            for (String prefix : PUBLIC_CONTENT_PREFIXES) {
-                if (path.startsWith(prefix)) {
-                    return true;
-                }
-            }
-
-            // System endpoints
-            for (String endpoint : SYSTEM_ENDPOINTS) {
-                if (path.startsWith(endpoint)) {
-                    return true;
-                }
-            }
+        // 3. POST: auth POST, webhook, property search
+        if ("POST".equalsIgnoreCase(method)) {
+            return POST_MATCHER.matches(path);
         }
 
         // Default: require authentication
@@ -236,6 +227,110 @@ public final class PublicEndpoints {
     private PublicEndpoints() {
         throw new UnsupportedOperationException("This is a utility class and cannot be instantiated");
     }
+
+    /**
+     * Case-insensitive character trie over request paths
+     * - exact: path must end on the node
+     * - prefix: any path passing through the node matches (plain startsWith semantics)
+     * - DIGITS segment: one or more ASCII digits (same as regex \d+)
+     */
+    static final class PathTrie {
+
+        static final String DIGITS = "{digits}";
+
+        private final Node root = new Node();
+
+        void addExact(String pattern) {
+            insert(pattern).exact = true;
+        }
+
+        void addPrefix(String pattern) {
+            insert(pattern).prefix = true;
+        }
+
+        boolean matches(String path) {
+            return matches(root, path, 0);
+        }
+
+        private Node insert(String pattern) {
+            Node node = root;
+            String lower = pattern.toLowerCase();
+            int i = 0;
+            while (i < lower.length()) {
+                if (lower.startsWith(DIGITS, i)) {
+                    if (node.digits == null) {
+                        node.digits = new Node();
+                    }
+                    node = node.digits;
+                    i += DIGITS.length();
+                } else {
+                    node = node.childOrCreate(lower.charAt(i));
+                    i++;
+                }
+            }
+            return node;
+        }
+
+        private static boolean matches(Node node, String path, int i) {
+            while (node != null) {
+                if (node.prefix) {
+                    return true;
+                }
+                if (i == path.length()) {
+                    return node.exact;
+                }
+
+                char c = Character.toLowerCase(path.charAt(i));
+                if (node.digits != null && isDigit(c)) {
+                    int j = i + 1;
+                    while (j < path.length() && isDigit(path.charAt(j))) {
+                        j++;
+                    }
+                    if (matches(node.digits, path, j)) {
+                        return true;
+                    }
+                }
+
+                node = node.child(c);
+                i++;
+            }
+            return false;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static final class Node {
+            private char[] keys = new char[0];
+            private Node[] children = new Node[0];
+            private Node digits;
+            private boolean exact;
+            private boolean prefix;
+
+            Node child(char c) {
+                for (int k = 0; k < keys.length; k++) {
+                    if (keys[k] == c) {
+                        return children[k];
+                    }
+                }
+                return null;
+            }
+
+            Node childOrCreate(char c) {
+                Node existing = child(c);
+                if (existing != null) {
+                    return existing;
+                }
+                Node created = new Node();
+                keys = Arrays.copyOf(keys, keys.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                keys[keys.length - 1] = c;
+                children[children.length - 1] = created;
+                return created;
+            }
+        }
+    }
 }
 
 
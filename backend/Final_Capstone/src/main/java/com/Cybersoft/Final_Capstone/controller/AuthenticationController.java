@@ -2,6 +2,7 @@ package com.Cybersoft.Final_Capstone.controller;
 
 import com.Cybersoft.Final_Capstone.Entity.UserAccount;
 import com.Cybersoft.Final_Capstone.components.JwtTokenUtil;
+import com.Cybersoft.Final_Capstone.components.SecurityUtil;
 import com.Cybersoft.Final_Capstone.payload.request.SignInRequest;
 import com.Cybersoft.Final_Capstone.payload.request.SignUpRequest;
 import com.Cybersoft.Final_Capstone.payload.response.BaseResponse;
@@ -19,7 +20,6 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -47,6 +47,7 @@ public class AuthenticationController {
 
     private final TokenService tokenService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final SecurityUtil securityUtil;
     
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(AuthenticationController.class);
 
@@ -383,13 +384,13 @@ public class AuthenticationController {
      */
     @PostMapping("/logout")
     public ResponseEntity<ResponseObject> signOut(
-            @AuthenticationPrincipal UserAccount user,
             @CookieValue(name = "refresh_token", required = false) String refreshToken,
             @RequestHeader(name = "X-Device-Id", required = false) String deviceId,
             HttpServletRequest request,
             HttpServletResponse response) {
         try {
             // Validate user is authenticated
+            UserAccount user = securityUtil.getLoggedInUser();
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
                         ResponseObject.builder()
@@ -449,9 +450,9 @@ public class AuthenticationController {
      */
     @PostMapping("/logout-all")
     public ResponseEntity<ResponseObject> signOutAllDevices(
-            @AuthenticationPrincipal UserAccount user,
             HttpServletResponse response) {
         try {
+            UserAccount user = securityUtil.getLoggedInUser();
             if (user == null) {
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(
                         ResponseObject.builder()
@@ -499,8 +500,7 @@ public class AuthenticationController {
      */
     @PostMapping(value = "/upload-avatar", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<BaseResponse> uploadAvatar(
-            @RequestPart("avatar") MultipartFile avatar,
-            @AuthenticationPrincipal UserAccount user) {
+            @RequestPart("avatar") MultipartFile avatar) {
         try {
             if (avatar == null || avatar.isEmpty()) {
                 throw new IllegalArgumentException("Avatar file is required");
@@ -512,6 +512,7 @@ public class AuthenticationController {
                 throw new IllegalArgumentException("File must be an image");
             }
 
+            UserAccount user = securityUtil.getLoggedInUser();
             if (user == null) {
                 throw new IllegalArgumentException("Authentication required");
             }
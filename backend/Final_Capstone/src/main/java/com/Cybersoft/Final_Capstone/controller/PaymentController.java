@@ -22,6 +22,7 @@ public class PaymentController {
     /**
      * Webhook endpoint for PayOS payment notifications
      * This endpoint is called by PayOS when a payment status changes
+     * Webhook is verified + stored, then acknowledged immediately (processed async by PaymentWebhookWorker)
      */
     @PostMapping("/webhook")
     public ResponseEntity<?> handlePaymentWebhook(@RequestBody PayOSWebhookRequest webhookRequest) {
@@ -30,12 +31,12 @@ public class PaymentController {
                 webhookRequest.getData() != null ? "SUCCESS" : "FAILED");
 
         try {
-            // Verify signature and process payment
-            paymentWebhookService.processWebhook(webhookRequest);
+            // Verify signature and queue for processing
+            boolean queued = paymentWebhookService.ingestWebhook(webhookRequest);
 
             BaseResponse response = new BaseResponse();
             response.setCode(HttpStatus.OK.value());
-            response.setMessage("Webhook processed successfully");
+            response.setMessage(queued ? "Webhook accepted" : "Webhook acknowledged (test or duplicate)");
             response.setData(null);
 
             return ResponseEntity.ok(response);
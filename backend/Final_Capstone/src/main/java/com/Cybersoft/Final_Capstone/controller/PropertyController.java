@@ -2,11 +2,13 @@ package com.Cybersoft.Final_Capstone.controller;
 
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.ResponseEntity;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Collections;
 import com.Cybersoft.Final_Capstone.dto.PropertyDTO;
@@ -51,6 +53,8 @@ public class PropertyController {
             @RequestParam(required = false) List<Integer> amenities,
             @RequestParam(required = false) List<Integer> facilities,
             @RequestParam(required = false) String name,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime checkIn,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime checkOut,
             @RequestParam(required = false) Integer page,
             @RequestParam(required = false) Integer size,
             @RequestParam(required = false) String sortBy,
@@ -66,7 +70,8 @@ public class PropertyController {
         PageResponse<PropertyListItemDTO> pageResponse = propertyService.searchPropertiesPaginated(
                 type, city, location, minPrice, maxPrice,
                 bedrooms, bathrooms, maxAdults, maxChildren,
-                maxInfants, maxPets, amenities, facilities, name, pageable
+                maxInfants, maxPets, amenities, facilities, name,
+                checkIn, checkOut, pageable
         );
 
         BaseResponse response = new BaseResponse();
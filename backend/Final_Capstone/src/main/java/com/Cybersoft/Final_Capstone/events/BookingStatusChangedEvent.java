@@ -0,0 +1,32 @@
+package com.Cybersoft.Final_Capstone.events;
+
+import com.Cybersoft.Final_Capstone.Entity.Booking;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published whenever a booking moves to a new status (create, approve, cancel, payment, jobs...)
+ * Listeners run AFTER_COMMIT so in-memory views never see rolled back transitions
+ * - previousStatus = null  -> booking vừa được tạo
+ * - status = "DELETED"     -> booking đã bị xóa khỏi DB
+ */
+public record BookingStatusChangedEvent(Integer bookingId,
+                                        Integer propertyId,
+                                        LocalDateTime checkIn,
+                                        LocalDateTime checkOut,
+                                        String previousStatus,
+                                        String status,
+                                        BigDecimal totalPrice) {
+
+    public static BookingStatusChangedEvent of(Booking booking, String previousStatus, String status) {
+        return new BookingStatusChangedEvent(
+                booking.getId(),
+                booking.getProperty().getId(),
+                booking.getCheckIn(),
+                booking.getCheckOut(),
+                previousStatus,
+                status,
+                booking.getTotalPrice());
+    }
+}
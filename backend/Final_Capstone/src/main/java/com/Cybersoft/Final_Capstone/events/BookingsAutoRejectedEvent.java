@@ -0,0 +1,8 @@
+package com.Cybersoft.Final_Capstone.events;
+
+/**
+ * Bulk PENDING -> REJECTED transition (BookingRepository.autoRejectConflicts)
+ * Không có booking id từng dòng, chỉ có property + số dòng bị reject
+ */
+public record BookingsAutoRejectedEvent(Integer propertyId, int count) {
+}
@@ -0,0 +1,9 @@
+package com.Cybersoft.Final_Capstone.events;
+
+import java.time.LocalDateTime;
+
+/**
+ * Fired when a booking is approved (CONFIRMED) and its 24h payment deadline starts
+ */
+public record PaymentDeadlineSetEvent(Integer bookingId, LocalDateTime deadline) {
+}
@@ -0,0 +1,7 @@
+package com.Cybersoft.Final_Capstone.events;
+
+/**
+ * Fired after a new (non-duplicate) PayOS webhook row is stored, to hand it to the worker pool
+ */
+public record PaymentWebhookReceivedEvent(Long webhookEventId) {
+}
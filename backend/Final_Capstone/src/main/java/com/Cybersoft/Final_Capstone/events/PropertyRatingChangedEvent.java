@@ -0,0 +1,7 @@
+package com.Cybersoft.Final_Capstone.events;
+
+/**
+ * Fired when a review add/update/delete changes Property.overallRating
+ */
+public record PropertyRatingChangedEvent(Integer propertyId) {
+}
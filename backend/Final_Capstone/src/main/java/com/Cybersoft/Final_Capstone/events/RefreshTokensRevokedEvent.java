@@ -0,0 +1,10 @@
+package com.Cybersoft.Final_Capstone.events;
+
+import java.util.List;
+
+/**
+ * Fired when refresh tokens are revoked (logout, logout-all, rotation, device eviction)
+ * so RevokedTokenRegistry can deny their JTIs without a DB read
+ */
+public record RefreshTokensRevokedEvent(List<String> jtis) {
+}
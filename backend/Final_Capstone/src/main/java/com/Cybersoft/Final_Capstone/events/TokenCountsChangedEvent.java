@@ -0,0 +1,9 @@
+package com.Cybersoft.Final_Capstone.events;
+
+/**
+ * Net change of the tokens table made by one transaction (inserts, revocations, deletes)
+ * @param totalDelta   rows inserted - rows deleted
+ * @param revokedDelta rows revoked - revoked rows deleted
+ */
+public record TokenCountsChangedEvent(long totalDelta, long revokedDelta) {
+}
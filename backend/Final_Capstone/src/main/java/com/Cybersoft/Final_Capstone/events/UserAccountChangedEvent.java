@@ -0,0 +1,8 @@
+package com.Cybersoft.Final_Capstone.events;
+
+/**
+ * Fired whenever data carried by the authenticated principal changes
+ * (profile, avatar, password, role, account status)
+ */
+public record UserAccountChangedEvent(Integer userId) {
+}
@@ -70,6 +70,16 @@ public class CentralExceptions {
         return ResponseEntity.ok(baseResponse);
     }
 
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<?> handleServiceBusyException(ServiceBusyException e) {
+        BaseResponse baseResponse = new BaseResponse();
+        baseResponse.setCode(503);
+        baseResponse.setMessage(e.getMessage());
+        baseResponse.setData(null);
+        // Real 503 (not 200) so clients / load balancers back off
+        return ResponseEntity.status(503).header("Retry-After", "1").body(baseResponse);
+    }
+
     @ExceptionHandler(PhoneDuplicateException.class)
     public ResponseEntity<?> handlePhoneDuplicateException(PhoneDuplicateException e) {
         BaseResponse baseResponse = new BaseResponse();
@@ -0,0 +1,7 @@
+package com.Cybersoft.Final_Capstone.exception;
+
+public class ServiceBusyException extends RuntimeException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -1,8 +1,11 @@
 package com.Cybersoft.Final_Capstone.filter;
 
 import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.components.JwtPrincipal;
 import com.Cybersoft.Final_Capstone.components.JwtTokenUtil;
+import com.Cybersoft.Final_Capstone.components.UserPrincipalCache;
 import com.Cybersoft.Final_Capstone.constants.PublicEndpoints;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -24,6 +27,8 @@ import java.io.IOException;
  * NOTE: JWT Authentication Filter
  * - Access Token: STATELESS validation (chỉ verify JWT signature, không check DB)
  * - Không track/revoke Access Token trong DB
+ * - Principal lấy từ UserPrincipalCache (keyed by user id), chỉ hit DB khi cache miss
+ * - claimsOnly = true: principal là JwtPrincipal dựng từ claims, không load UserAccount
  * - Đăng ký thủ công trong WebSecurityConfig (không dùng @Component)
  */
 @RequiredArgsConstructor
@@ -33,6 +38,8 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
     private final UserDetailsService userDetailsService;
     private final JwtTokenUtil jwtTokenUtil;
+    private final UserPrincipalCache principalCache;
+    private final boolean claimsOnly;
     // NOTE: Removed TokenRepository - không cần check DB cho Access Token
 
     @Override
@@ -44,25 +51,25 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         String requestPath = request.getServletPath();
         String requestMethod = request.getMethod();
 
-        logger.info("========================================");
-        logger.info("JwtTokenFilter - Path: {}, Method: {}", requestPath, requestMethod);
+        // NOTE: step-by-step logs chỉ ở DEBUG; mỗi request có 1 dòng summary ở RequestSummaryFilter
+        logger.debug("JwtTokenFilter - Path: {}, Method: {}", requestPath, requestMethod);
 
         // CRITICAL: Bypass ALL OPTIONS requests (CORS preflight) FIRST
         if ("OPTIONS".equalsIgnoreCase(requestMethod)) {
-            logger.info("✅ Bypassing OPTIONS request");
+            logger.debug("✅ Bypassing OPTIONS request");
             filterChain.doFilter(request, response);
             return;
         }
 
         // Check if this endpoint should bypass authentication
         if(isBypassToken(request)) {
-            logger.info("✅ BYPASSED - Endpoint does not require authentication");
-            logger.info("========================================");
+            logger.debug("✅ BYPASSED - Endpoint does not require authentication");
             filterChain.doFilter(request, response);
             return;
         }
 
-        logger.info("🔒 Endpoint REQUIRES authentication");
+        logger.debug("🔒 Endpoint REQUIRES authentication");
+        long authStart = System.nanoTime();
 
         try {
             final String authHeader = request.getHeader("Authorization");
@@ -76,10 +83,10 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
             final String token = authHeader.substring(7);
 
-            // NOTE: STATELESS validation - chỉ verify JWT, KHÔNG check DB
-            String subject;
+            // NOTE: STATELESS validation - chỉ verify JWT (1 lần/request, có cache), KHÔNG check DB
+            Claims claims;
             try {
-                subject = jwtTokenUtil.getSubject(token);
+                claims = jwtTokenUtil.parseClaims(token);
             } catch (ExpiredJwtException e) {
                 logger.warn("❌ JWT token expired");
                 response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -88,12 +95,18 @@ public class JwtTokenFilter extends OncePerRequestFilter {
                 return;
             }
 
+            if (claimsOnly) {
+                authenticateFromClaims(claims, authStart, request, response, filterChain);
+                return;
+            }
+
+            String subject = claims.getSubject();
             if (subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                UserAccount userDetails = (UserAccount) userDetailsService.loadUserByUsername(subject);
+                UserAccount userDetails = loadPrincipal(subject);
 
                 // NOTE: validateToken chỉ check JWT signature, expiration, user status
                 // KHÔNG check DB (stateless)
-                if(jwtTokenUtil.validateToken(token, userDetails)) {
+                if(jwtTokenUtil.validateToken(claims, userDetails)) {
                     UsernamePasswordAuthenticationToken authenticationToken =
                             new UsernamePasswordAuthenticationToken(
                                     userDetails,
@@ -103,7 +116,8 @@ public class JwtTokenFilter extends OncePerRequestFilter {
                     authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authenticationToken);
 
-                    logger.info("✅ User authenticated (stateless): {}", userDetails.getUsername());
+                    RequestSummaryFilter.recordAuthentication(request, userDetails.getId(), authStart);
+                    logger.debug("✅ User authenticated (stateless): {}", userDetails.getUsername());
                 } else {
                     logger.warn("❌ Token validation failed");
                     response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -127,6 +141,62 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         }
     }
 
+    /**
+     * Claims-only mode: signature + expiry đã verify khi parse, principal dựng từ claims
+     * NOTE: account status không check ở đây - SecurityUtil.getLoggedInUser() check khi load entity
+     */
+    private void authenticateFromClaims(Claims claims,
+                                        long authStart,
+                                        HttpServletRequest request,
+                                        HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+        JwtPrincipal principal = jwtTokenUtil.extractPrincipal(claims);
+        if (principal == null) {
+            logger.warn("❌ Token validation failed - missing access token claims");
+            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"INVALID_TOKEN\",\"message\":\"Token validation failed\"}");
+            return;
+        }
+
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            UsernamePasswordAuthenticationToken authenticationToken =
+                    new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+
+            RequestSummaryFilter.recordAuthentication(request, principal.userId(), authStart);
+            logger.debug("✅ User authenticated (claims-only): {}", principal.username());
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Subject của access token = user id -> đọc cache trước, miss thì load từ DB và cache lại
+     */
+    private UserAccount loadPrincipal(String subject) {
+        Integer userId = parseUserId(subject);
+        if (userId != null) {
+            UserAccount cached = principalCache.get(userId);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        UserAccount loaded = (UserAccount) userDetailsService.loadUserByUsername(subject);
+        principalCache.put(loaded);
+        return loaded;
+    }
+
+    private static Integer parseUserId(String subject) {
+        try {
+            return Integer.valueOf(subject);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     /**
      * Check if endpoint bypasses JWT authentication
      * Uses centralized PublicEndpoints configuration
@@ -135,15 +205,15 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         String requestPath = request.getServletPath();
         String requestMethod = request.getMethod();
 
-        logger.info("🔍 Checking bypass - Path: '{}', Method: '{}'", requestPath, requestMethod);
+        logger.debug("🔍 Checking bypass - Path: '{}', Method: '{}'", requestPath, requestMethod);
 
         // Use centralized PublicEndpoints configuration
         boolean isPublic = PublicEndpoints.isPublicEndpoint(requestMethod, requestPath);
 
         if (isPublic) {
-            logger.info("✅ MATCH: Public endpoint - {} {}", requestMethod, requestPath);
+            logger.debug("✅ MATCH: Public endpoint - {} {}", requestMethod, requestPath);
         } else {
-            logger.warn("❌ NO MATCH - Requires authentication: {} {}", requestMethod, requestPath);
+            logger.debug("❌ NO MATCH - Requires authentication: {} {}", requestMethod, requestPath);
         }
 
         return isPublic;
@@ -0,0 +1,84 @@
+package com.Cybersoft.Final_Capstone.filter;
+
+import com.Cybersoft.Final_Capstone.components.RateLimitStore;
+import com.Cybersoft.Final_Capstone.config.RateLimitProperties;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * NOTE: Rate limiting cho các endpoint public/tốn tài nguyên
+ * (/auth/refresh, /auth/login, /bookings/create, /property/search - cấu hình ở rate-limit.policies)
+ *
+ * - Token bucket per (policy, client remote address), storage pluggable qua RateLimitStore
+ * - Chạy trước RefreshGuardFilter/JwtTokenFilter => request bị chặn không tốn JWT parse hay DB read
+ * - Vượt limit => 429 TOO_MANY_REQUESTS (cùng format với RefreshGuardFilter)
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimitStore rateLimitStore;
+    // "POST /auth/login" -> policy
+    private final Map<String, Limit> limits = new HashMap<>();
+
+    private record Limit(String name, int capacity, Duration window) {
+    }
+
+    public RateLimitFilter(RateLimitProperties properties, RateLimitStore rateLimitStore) {
+        this.rateLimitStore = rateLimitStore;
+        properties.getPolicies().forEach((name, policy) -> {
+            if (policy.getPath() == null || policy.getCapacity() <= 0 || policy.getWindowSeconds() <= 0) {
+                log.warn("RateLimitFilter: policy '{}' ignored (path, capacity and window-seconds are required)", name);
+                return;
+            }
+            limits.put(endpoint(policy.getMethod(), policy.getPath()),
+                    new Limit(name, policy.getCapacity(), Duration.ofSeconds(policy.getWindowSeconds())));
+        });
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+
+        Limit limit = limits.get(endpoint(request.getMethod(), request.getRequestURI()));
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String clientKey = getClientKey(request);
+        if (!rateLimitStore.tryAcquire(limit.name() + ":" + clientKey, limit.capacity(), limit.window())) {
+            log.warn("RateLimitFilter: Rate limit '{}' exceeded for client: {}", limit.name(), clientKey);
+            response.setStatus(429); // Too Many Requests
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write(
+                "{\"error\":\"TOO_MANY_REQUESTS\",\"message\":\"Too many requests. Please try again later.\"}");
+            return;
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    private static String endpoint(String method, String path) {
+        return method.toUpperCase(Locale.ROOT) + " " + path;
+    }
+
+    private String getClientKey(HttpServletRequest request) {
+        // NOTE: Chỉ dùng remote address - X-Forwarded-For / X-Real-IP / User-Agent do client tự gửi,
+        // đổi header là có bucket mới. Sau reverse proxy tin cậy, server.forward-headers-strategy
+        // để Tomcat (RemoteIpValve) ghi IP thật của client vào remoteAddr
+        return request.getRemoteAddr();
+    }
+}
@@ -1,8 +1,11 @@
 package com.Cybersoft.Final_Capstone.filter;
 
+import com.Cybersoft.Final_Capstone.components.JwtTokenUtil;
+import com.Cybersoft.Final_Capstone.components.RevokedTokenRegistry;
 import com.Cybersoft.Final_Capstone.config.CorsProperties;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -11,9 +14,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 /**
  * NOTE: Cross-site protection cho /auth/refresh
@@ -23,27 +23,21 @@ import java.util.concurrent.TimeUnit;
  * - POST method only
  * - Origin/Referer phải thuộc whitelist (hoặc null trong dev mode cho Postman)
  * - Header X-CSRF-Check: 1 (có thể bỏ qua trong dev mode)
- * - Rate limiting cơ bản (5 requests/minute)
+ * - Rate limiting: RateLimitFilter (policy "refresh", chạy trước filter này)
+ * - Refresh token đã revoke (logout, đã rotate) bị chặn ở đây qua RevokedTokenRegistry,
+ *   token hợp lệ đi tiếp mà không tốn DB read
  */
 @Slf4j
 @RequiredArgsConstructor
 public class RefreshGuardFilter extends OncePerRequestFilter {
 
     private final CorsProperties corsProperties;
-
-    @Value("${rate-limit.refresh-endpoint.max-requests:5}")
-    private int maxRequests;
-
-    @Value("${rate-limit.refresh-endpoint.window-seconds:60}")
-    private long windowSeconds;
+    private final JwtTokenUtil jwtTokenUtil;
+    private final RevokedTokenRegistry revokedTokenRegistry;
 
     @Value("${spring.profiles.active:dev}")
     private String activeProfile;
 
-    // NOTE: Simple in-memory rate limiter
-    // TODO: Production nên dùng Redis cho distributed rate limiting
-    private final Map<String, RateLimitEntry> rateLimitMap = new ConcurrentHashMap<>();
-
     @Override
     protected void doFilterInternal(HttpServletRequest request,
                                     HttpServletResponse response,
@@ -99,12 +93,12 @@ public class RefreshGuardFilter extends OncePerRequestFilter {
             log.debug("RefreshGuardFilter: Dev mode - allowing request without X-CSRF-Check header");
         }
 
-        // 4. CHECK: Rate limiting
-        String clientKey = getClientKey(request);
-        if (!checkRateLimit(clientKey)) {
-            log.warn("RefreshGuardFilter: Rate limit exceeded for client: {}", clientKey);
-            sendError(response, 429, // Too Many Requests
-                     "Too many requests. Please try again later.");
+        // 4. CHECK: Revoked refresh token (no DB read unless the bloom filter hits)
+        String jti = extractRefreshJti(request);
+        if (jti != null && revokedTokenRegistry.isRevoked(jti)) {
+            log.warn("RefreshGuardFilter: Revoked refresh token presented. JTI: {}", jti);
+            sendError(response, 499, // TOKEN_REVOKED (same code as AuthenticationController.refresh)
+                     "Token revoked");
             return;
         }
 
@@ -129,50 +123,24 @@ public class RefreshGuardFilter extends OncePerRequestFilter {
                 .anyMatch(allowed -> referer.trim().startsWith(allowed.trim()));
     }
 
-    private String getClientKey(HttpServletRequest request) {
-        // NOTE: Combine IP + User-Agent để tạo unique key
-        String ip = getClientIP(request);
-        String userAgent = request.getHeader("User-Agent");
-        return ip + "_" + (userAgent != null ? userAgent.hashCode() : "unknown");
-    }
-
-    private String getClientIP(HttpServletRequest request) {
-        // NOTE: Handle proxy/load balancer
-        String ip = request.getHeader("X-Forwarded-For");
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getHeader("X-Real-IP");
+    /**
+     * JTI of the refresh_token cookie, or null when missing/invalid (controller returns 449/498 for those)
+     */
+    private String extractRefreshJti(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
         }
-        if (ip == null || ip.isEmpty() || "unknown".equalsIgnoreCase(ip)) {
-            ip = request.getRemoteAddr();
-        }
-        // Get first IP if multiple (proxy chain)
-        if (ip != null && ip.contains(",")) {
-            ip = ip.split(",")[0].trim();
-        }
-        return ip;
-    }
-
-    private boolean checkRateLimit(String clientKey) {
-        long now = System.currentTimeMillis();
-
-        rateLimitMap.compute(clientKey, (key, entry) -> {
-            if (entry == null || (now - entry.windowStart) > TimeUnit.SECONDS.toMillis(windowSeconds)) {
-                // New window
-                return new RateLimitEntry(now, 1);
-            } else {
-                // Within window
-                entry.count++;
-                return entry;
+        for (Cookie cookie : cookies) {
+            if ("refresh_token".equals(cookie.getName()) && cookie.getValue() != null && !cookie.getValue().isEmpty()) {
+                try {
+                    return jwtTokenUtil.getJtiFromToken(cookie.getValue());
+                } catch (Exception e) {
+                    return null;
+                }
             }
-        });
-
-        // NOTE: Cleanup old entries (prevent memory leak)
-        rateLimitMap.entrySet().removeIf(e ->
-            (now - e.getValue().windowStart) > TimeUnit.SECONDS.toMillis(windowSeconds * 2)
-        );
-
-        RateLimitEntry entry = rateLimitMap.get(clientKey);
-        return entry != null && entry.count <= maxRequests;
+        }
+        return null;
     }
 
     private void sendError(HttpServletResponse response, int status, String message)
@@ -191,17 +159,8 @@ public class RefreshGuardFilter extends OncePerRequestFilter {
             case 403 -> "FORBIDDEN";
             case 405 -> "METHOD_NOT_ALLOWED";
             case 429 -> "TOO_MANY_REQUESTS";
+            case 499 -> "TOKEN_REVOKED";
             default -> "ERROR";
         };
     }
-
-    private static class RateLimitEntry {
-        long windowStart;
-        int count;
-
-        RateLimitEntry(long windowStart, int count) {
-            this.windowStart = windowStart;
-            this.count = count;
-        }
-    }
 }
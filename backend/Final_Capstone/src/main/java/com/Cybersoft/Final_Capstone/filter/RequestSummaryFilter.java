@@ -0,0 +1,69 @@
+package com.Cybersoft.Final_Capstone.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * NOTE: One structured summary line per request (thay cho log từng bước trong JwtTokenFilter)
+ * - Format: method path status total_ms auth_ms user
+ * - auth_ms/user do JwtTokenFilter ghi vào request attribute (null cho public endpoint)
+ * - Chạy ngoài Spring Security chain nên đo được toàn bộ thời gian xử lý
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestSummaryFilter extends OncePerRequestFilter {
+
+    private static final String USER_ID_ATTRIBUTE = RequestSummaryFilter.class.getName() + ".userId";
+    private static final String AUTH_NANOS_ATTRIBUTE = RequestSummaryFilter.class.getName() + ".authNanos";
+
+    /**
+     * Called by JwtTokenFilter once the request is authenticated
+     */
+    public static void recordAuthentication(HttpServletRequest request, Integer userId, long authStartNanos) {
+        request.setAttribute(USER_ID_ATTRIBUTE, userId);
+        request.setAttribute(AUTH_NANOS_ATTRIBUTE, System.nanoTime() - authStartNanos);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!log.isInfoEnabled()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long totalMicros = (System.nanoTime() - start) / 1_000;
+            Object authNanos = request.getAttribute(AUTH_NANOS_ATTRIBUTE);
+            String authMs = authNanos instanceof Long nanos ? formatMillis(nanos / 1_000) : "-";
+            Object userId = request.getAttribute(USER_ID_ATTRIBUTE);
+
+            log.info("method={} path={} status={} total_ms={} auth_ms={} user={}",
+                    request.getMethod(),
+                    request.getRequestURI(),
+                    response.getStatus(),
+                    formatMillis(totalMicros),
+                    authMs,
+                    userId != null ? userId : "-");
+        }
+    }
+
+    private static String formatMillis(long micros) {
+        return (micros / 1_000) + "." + String.format("%03d", micros % 1_000);
+    }
+}
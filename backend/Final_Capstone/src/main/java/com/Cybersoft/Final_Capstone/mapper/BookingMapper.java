@@ -3,11 +3,9 @@ package com.Cybersoft.Final_Capstone.mapper;
 import com.Cybersoft.Final_Capstone.Entity.Booking;
 import com.Cybersoft.Final_Capstone.Entity.PromotionUsage;
 import com.Cybersoft.Final_Capstone.dto.BookingDTO;
-import com.Cybersoft.Final_Capstone.repository.PromotionUsageRepository;
 import lombok.Data;
 
 import java.math.BigDecimal;
-import java.util.Optional;
 
 @Data
 public class BookingMapper {
@@ -56,17 +54,13 @@ public class BookingMapper {
     /**
      * Convert Booking to BookingDTO with promotion info
      * @param booking Booking entity
-     * @param promotionUsageRepository Repository to fetch promotion usage
+     * @param usage Promotion usage of this booking (userPromotion + promotion already fetched), or null
      * @return BookingDTO with promotion fields populated
      */
-    public static BookingDTO toDTOWithPromotion(Booking booking, PromotionUsageRepository promotionUsageRepository) {
+    public static BookingDTO toDTOWithPromotion(Booking booking, PromotionUsage usage) {
         BookingDTO dto = toDTO(booking);
 
-        // Fetch promotion usage for this booking
-        Optional<PromotionUsage> usageOpt = promotionUsageRepository.findByBookingId(booking.getId());
-
-        if (usageOpt.isPresent()) {
-            PromotionUsage usage = usageOpt.get();
+        if (usage != null) {
             String promoCode = usage.getUserPromotion().getPromotion().getCode();
             BigDecimal discountAmount = usage.getDiscountAmount();
             BigDecimal finalPrice = booking.getTotalPrice();
@@ -80,5 +74,3 @@ public class BookingMapper {
         return dto;
     }
 }
-
-
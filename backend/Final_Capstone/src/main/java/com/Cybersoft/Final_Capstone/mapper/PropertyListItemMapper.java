@@ -3,6 +3,8 @@ package com.Cybersoft.Final_Capstone.mapper;
 import com.Cybersoft.Final_Capstone.Entity.Property;
 import com.Cybersoft.Final_Capstone.dto.PropertyListItemDTO;
 
+import java.util.Map;
+
 /**
  * Mapper for lightweight PropertyListItemDTO.
  * Used in search results to avoid loading full entity graphs (reviews, images, amenities, etc.).
@@ -14,6 +16,27 @@ public class PropertyListItemMapper {
      * Only maps essential fields for list/card view.
      */
     public static PropertyListItemDTO toListItemDTO(Property property) {
+        PropertyListItemDTO dto = toListItemDTOWithoutThumbnail(property);
+
+        // Get first image URL only (avoid loading all images)
+        if (property.getImages() != null && !property.getImages().isEmpty()) {
+            dto.setThumbnailImageUrl(property.getImages().get(0).getImagePath());
+        }
+
+        return dto;
+    }
+
+    /**
+     * Batch variant used by paginated search: thumbnail comes from a pre-fetched map
+     * (ImageRepository.findThumbnailsByPropertyIds) so property.images is never initialized.
+     */
+    public static PropertyListItemDTO toListItemDTO(Property property, Map<Integer, String> thumbnails) {
+        PropertyListItemDTO dto = toListItemDTOWithoutThumbnail(property);
+        dto.setThumbnailImageUrl(thumbnails.get(property.getId()));
+        return dto;
+    }
+
+    private static PropertyListItemDTO toListItemDTOWithoutThumbnail(Property property) {
         PropertyListItemDTO dto = new PropertyListItemDTO();
         dto.setId(property.getId());
         dto.setName(property.getPropertyName());
@@ -28,12 +51,6 @@ public class PropertyListItemMapper {
         dto.setMaxAdults(property.getMaxAdults());
         dto.setMaxPets(property.getMaxPets());
         dto.setPropertyType(property.getPropertyType());
-
-        // Get first image URL only (avoid loading all images)
-        if (property.getImages() != null && !property.getImages().isEmpty()) {
-            dto.setThumbnailImageUrl(property.getImages().get(0).getImagePath());
-        }
-
         return dto;
     }
 }
@@ -5,6 +5,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -40,6 +41,11 @@ public class PropertySearchRequest {
     private Integer maxInfants;
     private Integer maxPets;
 
+    // Stay window filter (both required together)
+    // Only properties with no CONFIRMED/PAID booking overlapping [checkIn, checkOut) are returned
+    private LocalDateTime checkIn;
+    private LocalDateTime checkOut;
+
     // Feature filters (list of IDs)
     private List<Integer> amenities;
     private List<Integer> facilities;
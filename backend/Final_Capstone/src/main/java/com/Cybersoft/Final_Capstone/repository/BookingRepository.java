@@ -1,19 +1,36 @@
 package com.Cybersoft.Final_Capstone.repository;
 
 import com.Cybersoft.Final_Capstone.Entity.Booking;
+import com.Cybersoft.Final_Capstone.Entity.Status;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Integer>, JpaSpecificationExecutor<Booking> {
 
+    // Paginated booking lists: fetch the to-one graph used by BookingMapper in the same SELECT
+    // (user, property + its eager host/location/status, status, promotionUsage) instead of one select per row.
+    // promotionUsage is the inverse side of a one-to-one, so Hibernate would otherwise load it row by row
+    @Override
+    @EntityGraph(attributePaths = {"user", "user.role", "user.status",
+            "property", "property.host", "property.host.role", "property.host.status",
+            "property.location", "property.location.city", "property.status",
+            "status", "promotionUsage"})
+    Page<Booking> findAll(Specification<Booking> spec, Pageable pageable);
+
     // Find bookings by user
     List<Booking> findByUserId(Integer userId);
 
@@ -51,6 +68,19 @@ public interface BookingRepository extends JpaRepository<Booking, Integer>, JpaS
     @Query("SELECT b FROM Booking b WHERE b.property.host.id = :hostId ORDER BY b.createdAt DESC")
     List<Booking> findByHostId(@Param("hostId") Integer hostId);
 
+    /**
+     * Booking count + revenue per status for one host (HostStats rebuild)
+     */
+    interface StatusAggregateRow {
+        String getStatus();
+        Number getBookings();
+        BigDecimal getRevenue();
+    }
+
+    @Query("SELECT b.status.name AS status, COUNT(b) AS bookings, COALESCE(SUM(b.totalPrice), 0) AS revenue " +
+            "FROM Booking b WHERE b.property.host.id = :hostId GROUP BY b.status.name")
+    List<StatusAggregateRow> aggregateByStatusForHost(@Param("hostId") Integer hostId);
+
     // Find booking by ID with all relationships eagerly loaded
     @Query("SELECT b FROM Booking b " +
             "LEFT JOIN FETCH b.user " +
@@ -117,19 +147,115 @@ public interface BookingRepository extends JpaRepository<Booking, Integer>, JpaS
     Optional<Booking> findByIdForUpdate(@Param("id") Integer id);
 
     /**
-     * Find CONFIRMED bookings where payment deadline has passed
-     * Used by scheduled job to auto-cancel expired bookings
+     * Lock a booking row (FOR UPDATE) and read its status from the database, not from the persistence context
+     * Used by the payment webhook so the payment-timeout jobs (SKIP LOCKED) cannot cancel it concurrently
+     */
+    @Query(value = "SELECT b.id_status FROM booking b WHERE b.id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockStatusById(@Param("id") Integer id);
+
+    // ==================== SCHEDULED JOBS (CHUNKED, SET-BASED) ====================
+
+    /**
+     * Lock one chunk of CONFIRMED bookings whose payment deadline has passed
+     * SKIP LOCKED: bookings being paid right now (PaymentWebhookServiceImp holds the row via lockStatusById)
+     * are left for the next run; the webhook re-checks the status under the same lock
+     */
+    @Query(value = "SELECT b.id FROM booking b " +
+            "WHERE b.id_status = 7 " +
+            "AND b.confirmed_at IS NOT NULL " +
+            "AND b.confirmed_at < :deadline " +
+            "ORDER BY b.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Integer> lockExpiredUnpaidIds(@Param("deadline") LocalDateTime deadline,
+                                       @Param("limit") int limit);
+
+    /**
+     * Lock specific bookings if they are still CONFIRMED and past the deadline (PaymentDeadlineScheduler)
+     */
+    @Query(value = "SELECT b.id FROM booking b " +
+            "WHERE b.id IN (:ids) " +
+            "AND b.id_status = 7 " +
+            "AND b.confirmed_at IS NOT NULL " +
+            "AND b.confirmed_at < :deadline " +
+            "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Integer> lockExpiredUnpaidByIds(@Param("ids") Collection<Integer> ids,
+                                         @Param("deadline") LocalDateTime deadline);
+
+    /**
+     * CONFIRMED bookings still waiting for payment (seed for PaymentDeadlineScheduler)
+     */
+    interface PaymentDeadlineRow {
+        Integer getBookingId();
+        LocalDateTime getConfirmedAt();
+    }
+
+    @Query("SELECT b.id AS bookingId, b.confirmedAt AS confirmedAt FROM Booking b " +
+            "WHERE b.status.name = 'CONFIRMED' AND b.confirmedAt IS NOT NULL")
+    List<PaymentDeadlineRow> findPaymentDeadlines();
+
+    /**
+     * Lock one chunk of PAID bookings where check-out date has passed
+     */
+    @Query(value = "SELECT b.id FROM booking b " +
+            "WHERE b.id_status = 8 " +
+            "AND b.check_out < :now " +
+            "ORDER BY b.id LIMIT :limit FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<Integer> lockToCompleteIds(@Param("now") LocalDateTime now,
+                                    @Param("limit") int limit);
+
+    /**
+     * Bulk cancel (PaymentTimeoutJob) - one UPDATE per chunk
      */
-    @Query("SELECT b FROM Booking b WHERE b.status.name = 'CONFIRMED' " +
-            "AND b.confirmedAt IS NOT NULL " +
-            "AND b.confirmedAt < :deadline")
-    List<Booking> findExpiredUnpaid(@Param("deadline") LocalDateTime deadline);
+    @org.springframework.data.jpa.repository.Modifying
+    @Query("UPDATE Booking b SET b.status = :status, " +
+            "b.cancelledAt = :now, b.cancelledBy = 'system', b.cancelReason = :reason, b.updatedAt = :now " +
+            "WHERE b.id IN :ids")
+    int bulkCancel(@Param("ids") Collection<Integer> ids,
+                   @Param("status") Status status,
+                   @Param("now") LocalDateTime now,
+                   @Param("reason") String reason);
 
     /**
-     * Find PAID bookings where check-out date has passed
-     * Used by scheduled job to mark bookings as COMPLETED
+     * Bulk status change (BookingCompletionJob) - one UPDATE per chunk
      */
-    @Query("SELECT b FROM Booking b WHERE b.status.name = 'PAID' " +
-            "AND b.checkOut < :now")
-    List<Booking> findToComplete(@Param("now") LocalDateTime now);
+    @org.springframework.data.jpa.repository.Modifying
+    @Query("UPDATE Booking b SET b.status = :status, b.updatedAt = :now WHERE b.id IN :ids")
+    int bulkUpdateStatus(@Param("ids") Collection<Integer> ids,
+                         @Param("status") Status status,
+                         @Param("now") LocalDateTime now);
+
+    // ==================== AVAILABILITY INDEX ====================
+
+    /**
+     * Lightweight row used to seed PropertyAvailabilityIndex (no entity/relationship loading)
+     */
+    interface StayRow {
+        Integer getBookingId();
+        Integer getPropertyId();
+        LocalDateTime getCheckIn();
+        LocalDateTime getCheckOut();
+    }
+
+    /**
+     * Find CONFIRMED/PAID stays that have not checked out yet
+     * Used at startup to load the in-memory availability index
+     */
+    @Query("SELECT b.id AS bookingId, b.property.id AS propertyId, b.checkIn AS checkIn, b.checkOut AS checkOut " +
+            "FROM Booking b WHERE b.status.name IN ('CONFIRMED', 'PAID') " +
+            "AND b.checkOut > :now")
+    List<StayRow> findActiveStays(@Param("now") LocalDateTime now);
+
+    /**
+     * StayRow + price: enough to publish BookingStatusChangedEvent without loading entities
+     */
+    interface TransitionRow extends StayRow {
+        BigDecimal getTotalPrice();
+    }
+
+    @Query("SELECT b.id AS bookingId, b.property.id AS propertyId, b.checkIn AS checkIn, " +
+            "b.checkOut AS checkOut, b.totalPrice AS totalPrice " +
+            "FROM Booking b WHERE b.id IN :ids")
+    List<TransitionRow> findTransitionRowsByIds(@Param("ids") Collection<Integer> ids);
 }
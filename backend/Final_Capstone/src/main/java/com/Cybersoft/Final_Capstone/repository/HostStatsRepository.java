@@ -0,0 +1,59 @@
+package com.Cybersoft.Final_Capstone.repository;
+
+import com.Cybersoft.Final_Capstone.Entity.HostStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+
+public interface HostStatsRepository extends JpaRepository<HostStats, Integer> {
+
+    // Update atomic: cộng delta cho các counter booking của 1 host
+    @Modifying
+    @Query("update HostStats h set " +
+            "h.totalBookings = h.totalBookings + :total, " +
+            "h.pendingBookings = h.pendingBookings + :pending, " +
+            "h.confirmedBookings = h.confirmedBookings + :confirmed, " +
+            "h.completedBookings = h.completedBookings + :completed, " +
+            "h.cancelledBookings = h.cancelledBookings + :cancelled, " +
+            "h.totalRevenue = h.totalRevenue + :revenue " +
+            "where h.hostId = :hostId")
+    int applyBookingDelta(@Param("hostId") Integer hostId,
+                          @Param("total") int total,
+                          @Param("pending") int pending,
+                          @Param("confirmed") int confirmed,
+                          @Param("completed") int completed,
+                          @Param("cancelled") int cancelled,
+                          @Param("revenue") BigDecimal revenue);
+
+    @Modifying
+    @Query("update HostStats h set h.totalProperties = h.totalProperties + 1 where h.hostId = :hostId")
+    int incProperties(@Param("hostId") Integer hostId);
+
+    @Modifying
+    @Query("update HostStats h set h.ratingSum = :ratingSum, h.ratedProperties = :ratedProperties " +
+            "where h.hostId = :hostId")
+    int updateRatings(@Param("hostId") Integer hostId,
+                      @Param("ratingSum") BigDecimal ratingSum,
+                      @Param("ratedProperties") int ratedProperties);
+
+    // 1 = row created, 0 = already there (another listener rebuilt it concurrently)
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO host_stats (host_id, total_properties, total_bookings, pending_bookings, " +
+            "confirmed_bookings, completed_bookings, cancelled_bookings, total_revenue, rating_sum, rated_properties) " +
+            "VALUES (:hostId, :totalProperties, :totalBookings, :pending, :confirmed, :completed, :cancelled, " +
+            ":revenue, :ratingSum, :ratedProperties)",
+            nativeQuery = true)
+    int insertIgnore(@Param("hostId") Integer hostId,
+                     @Param("totalProperties") int totalProperties,
+                     @Param("totalBookings") int totalBookings,
+                     @Param("pending") int pending,
+                     @Param("confirmed") int confirmed,
+                     @Param("completed") int completed,
+                     @Param("cancelled") int cancelled,
+                     @Param("revenue") BigDecimal revenue,
+                     @Param("ratingSum") BigDecimal ratingSum,
+                     @Param("ratedProperties") int ratedProperties);
+}
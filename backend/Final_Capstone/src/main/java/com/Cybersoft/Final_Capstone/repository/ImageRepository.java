@@ -2,9 +2,31 @@ package com.Cybersoft.Final_Capstone.repository;
 
 import com.Cybersoft.Final_Capstone.Entity.Image;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 
 @Repository
 public interface ImageRepository extends JpaRepository<Image, Integer> {
+
+    /**
+     * Thumbnail row for list/card views
+     */
+    interface ThumbnailRow {
+        Integer getPropertyId();
+        String getImagePath();
+    }
+
+    /**
+     * First image (lowest id) of each property in one query
+     * Used by paginated search to avoid touching property.images per row
+     */
+    @Query("SELECT i.property.id AS propertyId, i.imagePath AS imagePath FROM Image i " +
+            "WHERE i.property.id IN :propertyIds " +
+            "AND i.id = (SELECT MIN(i2.id) FROM Image i2 WHERE i2.property.id = i.property.id)")
+    List<ThumbnailRow> findThumbnailsByPropertyIds(@Param("propertyIds") Collection<Integer> propertyIds);
 }
@@ -0,0 +1,56 @@
+package com.Cybersoft.Final_Capstone.repository;
+
+import com.Cybersoft.Final_Capstone.Entity.JobLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Lease operations commit on their own (REQUIRES_NEW) so other instances see them immediately,
+ * even when called from inside a job's transaction
+ */
+public interface JobLeaseRepository extends JpaRepository<JobLease, String> {
+
+    // Row per job, created lazily (already expired)
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "INSERT IGNORE INTO job_lease (name, owner, locked_at, locked_until) " +
+            "VALUES (:name, '', NOW(3), NOW(3))",
+            nativeQuery = true)
+    int ensureExists(@Param("name") String name);
+
+    // 1 = acquired (free/expired, or already ours), 0 = held by another instance
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE job_lease SET owner = :owner, locked_at = NOW(3), " +
+            "locked_until = NOW(3) + INTERVAL (:leaseMillis * 1000) MICROSECOND " +
+            "WHERE name = :name AND (locked_until <= NOW(3) OR owner = :owner)",
+            nativeQuery = true)
+    int tryAcquire(@Param("name") String name,
+                   @Param("owner") String owner,
+                   @Param("leaseMillis") long leaseMillis);
+
+    // 0 = lease was taken over by another instance
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE job_lease SET locked_until = NOW(3) + INTERVAL (:leaseMillis * 1000) MICROSECOND " +
+            "WHERE name = :name AND owner = :owner",
+            nativeQuery = true)
+    int renew(@Param("name") String name,
+              @Param("owner") String owner,
+              @Param("leaseMillis") long leaseMillis);
+
+    // Keep the lease at least minHold after start, so a node whose cron fires a bit later skips this tick
+    @Modifying
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Query(value = "UPDATE job_lease SET locked_until = " +
+            "GREATEST(NOW(3), locked_at + INTERVAL (:minHoldMillis * 1000) MICROSECOND) " +
+            "WHERE name = :name AND owner = :owner",
+            nativeQuery = true)
+    int release(@Param("name") String name,
+                @Param("owner") String owner,
+                @Param("minHoldMillis") long minHoldMillis);
+}
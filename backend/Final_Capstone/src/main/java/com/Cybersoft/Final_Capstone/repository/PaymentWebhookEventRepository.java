@@ -0,0 +1,74 @@
+package com.Cybersoft.Final_Capstone.repository;
+
+import com.Cybersoft.Final_Capstone.Entity.PaymentWebhookEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * State changes are single conditional UPDATEs so several workers/instances never process the same event twice
+ */
+@Repository
+public interface PaymentWebhookEventRepository extends JpaRepository<PaymentWebhookEvent, Long> {
+
+    // 1 = new webhook, 0 = duplicate (unique order_code + reference)
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT IGNORE INTO payment_webhook_event (order_code, reference, payload, status, attempts, received_at) " +
+            "VALUES (:orderCode, :reference, :payload, 'RECEIVED', 0, NOW(3))",
+            nativeQuery = true)
+    int insertIgnore(@Param("orderCode") Long orderCode,
+                     @Param("reference") String reference,
+                     @Param("payload") String payload);
+
+    @Query("SELECT e.id FROM PaymentWebhookEvent e WHERE e.orderCode = :orderCode AND e.reference = :reference")
+    Optional<Long> findIdByOrderCodeAndReference(@Param("orderCode") Long orderCode,
+                                                 @Param("reference") String reference);
+
+    // 1 = this worker owns the event now
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE payment_webhook_event SET status = 'PROCESSING', attempts = attempts + 1, claimed_at = NOW(3) " +
+            "WHERE id = :id AND status = 'RECEIVED'",
+            nativeQuery = true)
+    int claim(@Param("id") Long id);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE payment_webhook_event SET status = 'PROCESSED', processed_at = NOW(3), last_error = NULL " +
+            "WHERE id = :id",
+            nativeQuery = true)
+    int markProcessed(@Param("id") Long id);
+
+    // Back to RECEIVED for another try, or FAILED for good after maxAttempts
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE payment_webhook_event " +
+            "SET status = CASE WHEN attempts >= :maxAttempts THEN 'FAILED' ELSE 'RECEIVED' END, last_error = :error " +
+            "WHERE id = :id",
+            nativeQuery = true)
+    int markFailed(@Param("id") Long id,
+                   @Param("error") String error,
+                   @Param("maxAttempts") int maxAttempts);
+
+    // Worker died mid-processing (restart/crash) -> make it retryable again
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE payment_webhook_event SET status = 'RECEIVED' " +
+            "WHERE status = 'PROCESSING' AND claimed_at < NOW(3) - INTERVAL :staleSeconds SECOND",
+            nativeQuery = true)
+    int releaseStaleClaims(@Param("staleSeconds") long staleSeconds);
+
+    @Query(value = "SELECT id FROM payment_webhook_event " +
+            "WHERE status = 'RECEIVED' AND received_at < NOW(3) - INTERVAL :olderThanSeconds SECOND " +
+            "ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findRetryableIds(@Param("olderThanSeconds") long olderThanSeconds,
+                                @Param("limit") int limit);
+}
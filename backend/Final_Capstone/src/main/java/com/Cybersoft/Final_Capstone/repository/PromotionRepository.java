@@ -34,4 +34,13 @@ public interface PromotionRepository extends JpaRepository<Promotion, Integer> {
     @Query("UPDATE Promotion p SET p.timesUsed = p.timesUsed - 1 " +
             "WHERE p.id = :promotionId AND p.timesUsed > 0")
     int decrementUsage(@Param("promotionId") Integer promotionId);
+
+    /**
+     * Decrement usage by n at once (batched refunds), never below 0
+     */
+    @Modifying
+    @Query("UPDATE Promotion p SET p.timesUsed = CASE WHEN p.timesUsed > :count THEN p.timesUsed - :count ELSE 0 END " +
+            "WHERE p.id = :promotionId")
+    int decrementUsageBy(@Param("promotionId") Integer promotionId,
+                         @Param("count") int count);
 }
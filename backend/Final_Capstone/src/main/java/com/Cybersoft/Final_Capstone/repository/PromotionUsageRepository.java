@@ -3,10 +3,12 @@ package com.Cybersoft.Final_Capstone.repository;
 import com.Cybersoft.Final_Capstone.Entity.PromotionUsage;
 import com.Cybersoft.Final_Capstone.Entity.PromotionUsageId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,21 +41,45 @@ public interface PromotionUsageRepository extends JpaRepository<PromotionUsage,
      * Prevents duplicate promotion consumption
      */
     boolean existsByBooking_Id(Integer bookingId);
+
+    /**
+     * Promotion usages of one booking page, with userPromotion + promotion in the same SELECT
+     * Replaces one findByBookingId (+ 2 lazy loads) per row in booking listings
+     */
+    @Query("SELECT pu FROM PromotionUsage pu " +
+           "JOIN FETCH pu.userPromotion up " +
+           "JOIN FETCH up.promotion p " +
+           "JOIN FETCH up.status " +
+           "JOIN FETCH p.status " +
+           "WHERE pu.booking.id IN :bookingIds")
+    List<PromotionUsage> findWithPromotionByBookingIds(@Param("bookingIds") Collection<Integer> bookingIds);
     
     /**
      * Count total usages for a specific user promotion
      */
     long countByUserPromotion_Id(Integer userPromotionId);
-}
-
-
-
-
-
-
-
-
 
+    // ==================== BATCH REFUND (PaymentTimeoutJob) ====================
 
+    interface RefundRow {
+        Integer getBookingId();
+        Integer getUserPromotionId();
+        Integer getPromotionId();
+    }
 
+    /**
+     * Usages of the given bookings that can still be refunded (UserPromotion not USED = not paid)
+     */
+    @Query("SELECT pu.booking.id AS bookingId, up.id AS userPromotionId, up.promotion.id AS promotionId " +
+           "FROM PromotionUsage pu JOIN pu.userPromotion up " +
+           "WHERE pu.booking.id IN :bookingIds " +
+           "AND up.status.name <> 'USED'")
+    List<RefundRow> findRefundableByBookingIds(@Param("bookingIds") Collection<Integer> bookingIds);
 
+    @Modifying
+    @Query("DELETE FROM PromotionUsage pu " +
+           "WHERE pu.booking.id IN :bookingIds " +
+           "AND pu.userPromotion.id IN :userPromotionIds")
+    int deleteByBookingIdsAndUserPromotionIds(@Param("bookingIds") Collection<Integer> bookingIds,
+                                              @Param("userPromotionIds") Collection<Integer> userPromotionIds);
+}
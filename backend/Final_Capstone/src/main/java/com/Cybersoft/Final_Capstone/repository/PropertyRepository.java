@@ -3,6 +3,10 @@ package com.Cybersoft.Final_Capstone.repository;
 import com.Cybersoft.Final_Capstone.Entity.Property;
 import com.Cybersoft.Final_Capstone.Enum.PropertyType;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
@@ -12,6 +16,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 @Repository
@@ -19,6 +24,31 @@ public interface PropertyRepository extends JpaRepository<Property, Integer>, Jp
     // Keep only actively used methods
     List<Property> findByHostId(Integer hostId); // Used by HostService
 
+    @Query("SELECT p.host.id FROM Property p WHERE p.id = :propertyId")
+    Optional<Integer> findHostIdById(@Param("propertyId") Integer propertyId);
+
+    /**
+     * Property count + rating aggregates for one host (HostStats)
+     * Chỉ tính property có overall_rating > 0 (giống logic cũ của getHostStatistics)
+     */
+    interface HostRatingRow {
+        Number getProperties();
+        BigDecimal getRatingSum();
+        Number getRatedProperties();
+    }
+
+    @Query("SELECT COUNT(p) AS properties, " +
+            "COALESCE(SUM(CASE WHEN p.overallRating > 0 THEN p.overallRating ELSE 0 END), 0) AS ratingSum, " +
+            "COALESCE(SUM(CASE WHEN p.overallRating > 0 THEN 1 ELSE 0 END), 0) AS ratedProperties " +
+            "FROM Property p WHERE p.host.id = :hostId")
+    HostRatingRow aggregateRatingsForHost(@Param("hostId") Integer hostId);
+
+    // Paginated search/list: fetch the to-one graph used by list cards in the same SELECT
+    // (host + its role/status, location + city, status) instead of one select per row
+    @Override
+    @EntityGraph(attributePaths = {"host", "host.role", "host.status", "location", "location.city", "status"})
+    Page<Property> findAll(Specification<Property> spec, Pageable pageable);
+
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("select p from Property p where p.id = :id")
     Optional<Property> findByIdForUpdate(@Param("id") Integer id);
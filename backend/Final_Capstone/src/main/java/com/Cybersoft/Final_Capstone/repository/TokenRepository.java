@@ -5,6 +5,7 @@ import com.Cybersoft.Final_Capstone.Entity.UserAccount;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -130,6 +131,81 @@ public interface TokenRepository extends JpaRepository<Token, Long> {
         @Param("now") Instant now
     );
 
+    // ==================== SET-BASED ROTATION (/auth/refresh) ====================
+
+    /**
+     * Token + user (role, status) in one SELECT: everything rotation and the new access token need
+     */
+    @Query("SELECT t FROM Token t JOIN FETCH t.user u JOIN FETCH u.role JOIN FETCH u.status WHERE t.jti = :jti")
+    Optional<Token> findForRotationByJti(@Param("jti") String jti);
+
+    /**
+     * Revoke the presented token only if it is still active
+     * @return 1 = this request owns the rotation, 0 = already rotated/revoked/expired (concurrent refresh or reuse)
+     */
+    @Modifying
+    @Query("UPDATE Token t SET t.revoked = true, t.revokedAt = :now " +
+           "WHERE t.jti = :jti AND t.revoked = false AND t.expiresAt > :now")
+    int revokeIfActive(@Param("jti") String jti, @Param("now") Instant now);
+
+    /**
+     * Revoke every other active token of the same device (revoke-before-insert, one UPDATE)
+     */
+    @Modifying
+    @Query("UPDATE Token t SET t.revoked = true, t.revokedAt = :now " +
+           "WHERE t.user.id = :userId AND t.deviceId = :deviceId " +
+           "AND t.revoked = false AND t.expiresAt > :now")
+    int revokeActiveByUserAndDevice(@Param("userId") Integer userId,
+                                    @Param("deviceId") String deviceId,
+                                    @Param("now") Instant now);
+
+    /**
+     * Same as revokeActiveByUserAndDevice, keyed by user_agent when there is no device id
+     */
+    @Modifying
+    @Query("UPDATE Token t SET t.revoked = true, t.revokedAt = :now " +
+           "WHERE t.user.id = :userId AND t.userAgent = :userAgent " +
+           "AND (t.deviceId IS NULL OR t.deviceId = 'Unknown') " +
+           "AND t.revoked = false AND t.expiresAt > :now")
+    int revokeActiveByUserAndUserAgent(@Param("userId") Integer userId,
+                                       @Param("userAgent") String userAgent,
+                                       @Param("now") Instant now);
+
+    /**
+     * Delete revoked tokens of the user except the protected ones (rotation chain cleanup, one DELETE)
+     */
+    @Modifying
+    @Query("DELETE FROM Token t WHERE t.user.id = :userId AND t.revoked = true AND t.jti NOT IN :protectedJtis")
+    int deleteRevokedExcept(@Param("userId") Integer userId,
+                            @Param("protectedJtis") List<String> protectedJtis);
+
+    // ==================== REVOCATION (RevokedTokenRegistry) ====================
+
+    @Query("SELECT t.jti FROM Token t WHERE t.revoked = true AND t.expiresAt > :now")
+    List<String> findRevokedUnexpiredJtis(@Param("now") Instant now);
+
+    @Query("SELECT t.jti FROM Token t WHERE t.revoked = true AND t.revokedAt > :since")
+    List<String> findJtisRevokedSince(@Param("since") Instant since);
+
+    boolean existsByJtiAndRevokedTrue(String jti);
+
+    @Query("SELECT t.jti FROM Token t WHERE t.tokenHash = :tokenHash AND t.revoked = false")
+    List<String> findActiveJtisByTokenHash(@Param("tokenHash") String tokenHash);
+
+    @Query("SELECT t.jti FROM Token t WHERE t.user.id = :userId AND t.revoked = false AND t.expiresAt > :now")
+    List<String> findValidJtisByUserId(@Param("userId") Integer userId, @Param("now") Instant now);
+
+    /**
+     * Revoke the given tokens in one UPDATE (logout / logout-all)
+     */
+    @Modifying
+    @Query("UPDATE Token t SET t.revoked = true, t.revokedAt = :now WHERE t.jti IN :jtis AND t.revoked = false")
+    int revokeByJtis(@Param("jtis") List<String> jtis, @Param("now") Instant now);
+
+    @Modifying
+    @Query("UPDATE Token t SET t.revoked = true, t.revokedAt = :now WHERE t.user.id = :userId AND t.revoked = false")
+    int revokeAllByUserId(@Param("userId") Integer userId, @Param("now") Instant now);
+
     // ==================== LEGACY QUERIES (kept for backward compatibility) ====================
 
     // NOTE: Device-based queries for 3-device limit feature (NON-LOCKING - use ForUpdate variants above)
@@ -140,22 +216,30 @@ public interface TokenRepository extends JpaRepository<Token, Long> {
     Optional<Token> findActiveTokenByUserAndDevice(@Param("user") UserAccount user, @Param("deviceId") String deviceId, @Param("now") Instant now);
 
     // NOTE: Cleanup methods for scheduled jobs (reduce DB load)
+    // Bounded chunks: each call deletes at most :limit rows in its own short transaction
 
     /**
-     * Delete all expired tokens (expires_at < now)
-     * @return number of deleted tokens
+     * Delete one chunk of expired tokens with the given revoked flag
+     * (split by flag so TokenStatsRecorder knows how many revoked rows went away)
      */
-    int deleteByExpiresAtBefore(Instant expiresAt);
+    @Modifying
+    @Query(value = "DELETE FROM tokens WHERE expires_at < :now AND revoked = :revoked LIMIT :limit",
+            nativeQuery = true)
+    int deleteExpiredChunk(@Param("now") Instant now,
+                           @Param("revoked") boolean revoked,
+                           @Param("limit") int limit);
 
     /**
-     * Delete old revoked tokens (for audit retention - keep 7 days)
-     * @return number of deleted tokens
+     * Delete one chunk of tokens revoked before the retention cutoff (audit retention - keep 7 days)
      */
-    @Query("DELETE FROM Token t WHERE t.revoked = true AND t.revokedAt < :revokedAt")
-    int deleteByRevokedTrueAndRevokedAtBefore(@Param("revokedAt") Instant revokedAt);
+    @Modifying
+    @Query(value = "DELETE FROM tokens WHERE revoked = 1 AND revoked_at < :revokedAt LIMIT :limit",
+            nativeQuery = true)
+    int deleteRevokedBeforeChunk(@Param("revokedAt") Instant revokedAt,
+                                 @Param("limit") int limit);
 
     /**
-     * Delete old duplicate tokens from same device (keep only newest per device)
+     * One chunk of older active tokens from the same device (keep only newest per device)
      * Priority: Keep tokens from different devices
      *
      * For each user+device combination, keep only the newest token
@@ -163,36 +247,26 @@ public interface TokenRepository extends JpaRepository<Token, Long> {
      * - Each device has max 1 active token
      * - Different devices are preserved (up to 3 devices per user)
      * - Reduces DB load from duplicate logins on same device
-     *
-     * @return number of deleted tokens
      */
     @Query(value = """
-        DELETE FROM tokens 
-        WHERE id IN (
-            SELECT t1.id 
-            FROM tokens t1
-            WHERE t1.revoked = 0 
-              AND t1.device_id IS NOT NULL 
-              AND t1.device_id != 'Unknown'
-              AND EXISTS (
-                SELECT 1 
-                FROM tokens t2 
-                WHERE t2.user_id = t1.user_id 
-                  AND t2.device_id = t1.device_id
-                  AND t2.revoked = 0
-                  AND t2.created_at > t1.created_at
-              )
-        )
+        SELECT t1.id
+        FROM tokens t1
+        WHERE t1.revoked = 0
+          AND t1.device_id IS NOT NULL
+          AND t1.device_id != 'Unknown'
+          AND EXISTS (
+            SELECT 1
+            FROM tokens t2
+            WHERE t2.user_id = t1.user_id
+              AND t2.device_id = t1.device_id
+              AND t2.revoked = 0
+              AND t2.created_at > t1.created_at
+          )
+        LIMIT :limit
         """, nativeQuery = true)
-    int deleteOldDuplicateDeviceTokens();
-
-    /**
-     * Count active tokens (not revoked and not expired)
-     */
-    long countByRevokedFalseAndExpiresAtAfter(Instant now);
+    List<Integer> findOldDuplicateDeviceTokenIds(@Param("limit") int limit);
 
-    /**
-     * Count revoked tokens
-     */
-    long countByRevokedTrue();
+    @Modifying
+    @Query(value = "DELETE FROM tokens WHERE id IN (:ids)", nativeQuery = true)
+    int deleteByIds(@Param("ids") List<Integer> ids);
 }
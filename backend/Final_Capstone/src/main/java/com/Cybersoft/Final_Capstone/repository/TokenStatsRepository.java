@@ -0,0 +1,26 @@
+package com.Cybersoft.Final_Capstone.repository;
+
+import com.Cybersoft.Final_Capstone.Entity.TokenStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface TokenStatsRepository extends JpaRepository<TokenStats, Long> {
+
+    // Update atomic: cộng delta đã gom từ 1 instance
+    @Modifying
+    @Query("update TokenStats s set s.totalTokens = s.totalTokens + :total, " +
+            "s.revokedTokens = s.revokedTokens + :revoked where s.id = 1")
+    int applyDelta(@Param("total") long total, @Param("revoked") long revoked);
+
+    // Đếm lại từ bảng tokens (chạy 1 lần/ngày, sau các job purge)
+    @Modifying
+    @Query(value = "UPDATE token_stats SET " +
+            "total_tokens = (SELECT COUNT(*) FROM tokens), " +
+            "revoked_tokens = (SELECT COUNT(*) FROM tokens WHERE revoked = 1), " +
+            "reconciled_at = NOW() " +
+            "WHERE id = 1",
+            nativeQuery = true)
+    int reconcile();
+}
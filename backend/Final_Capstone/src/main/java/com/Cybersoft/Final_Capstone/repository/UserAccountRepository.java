@@ -8,7 +8,9 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
 
 @Repository
 public interface UserAccountRepository extends JpaRepository<UserAccount, Integer> {
@@ -35,4 +37,67 @@ public interface UserAccountRepository extends JpaRepository<UserAccount, Intege
     Page<UserAccount> findAll(@Param("keyword") String keyword, Pageable pageable);
     boolean existsByPhone(String phone);
     Optional<UserAccount> findByPhone(String phone);
+
+    /**
+     * Login: email or username in 1 round trip (both unique => index merge union, at most 2 rows),
+     * role + status fetched in the same SELECT
+     */
+    @Query("SELECT u FROM UserAccount u JOIN FETCH u.role JOIN FETCH u.status " +
+            "WHERE u.email = :identifier OR u.username = :identifier")
+    List<UserAccount> findAllByEmailOrUsername(@Param("identifier") String identifier);
+
+    /**
+     * JWT subject: id (new tokens) or legacy email / username / phone subjects in 1 round trip
+     * id = null when the subject is not numeric (u.id = NULL never matches)
+     */
+    @Query("SELECT u FROM UserAccount u JOIN FETCH u.role JOIN FETCH u.status " +
+            "WHERE u.id = :id OR u.email = :subject OR u.username = :subject OR u.phone = :subject")
+    List<UserAccount> findAllBySubject(@Param("id") Integer id, @Param("subject") String subject);
+
+    /**
+     * Same priority as the old sequential lookups: email, then username
+     */
+    default Optional<UserAccount> resolveLoginIdentifier(String identifier) {
+        return pickByPriority(findAllByEmailOrUsername(identifier), null, identifier);
+    }
+
+    /**
+     * Same priority as the old sequential lookups: id, email, username, phone
+     */
+    default Optional<UserAccount> resolveSubject(String subject) {
+        Integer id = null;
+        if (subject != null && !subject.isEmpty()) {
+            try {
+                id = Integer.parseInt(subject);
+            } catch (NumberFormatException e) {
+                // Not a numeric ID, legacy subject
+            }
+        }
+        return pickByPriority(findAllBySubject(id, subject), id, subject);
+    }
+
+    private static Optional<UserAccount> pickByPriority(List<UserAccount> candidates, Integer id, String identifier) {
+        if (candidates.size() <= 1) {
+            return candidates.stream().findFirst();
+        }
+        // Several rows: e.g. identifier is one user's email and another user's username
+        if (id != null) {
+            for (UserAccount candidate : candidates) {
+                if (id.equals(candidate.getId())) {
+                    return Optional.of(candidate);
+                }
+            }
+        }
+        List<Function<UserAccount, String>> columns =
+                List.of(UserAccount::getEmail, UserAccount::getUsername, UserAccount::getPhone);
+        for (Function<UserAccount, String> column : columns) {
+            for (UserAccount candidate : candidates) {
+                // Column collation is case-insensitive
+                if (identifier != null && identifier.equalsIgnoreCase(column.apply(candidate))) {
+                    return Optional.of(candidate);
+                }
+            }
+        }
+        return candidates.stream().findFirst();
+    }
 }
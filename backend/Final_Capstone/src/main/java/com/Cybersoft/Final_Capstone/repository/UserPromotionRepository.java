@@ -5,11 +5,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -64,4 +66,14 @@ public interface UserPromotionRepository extends JpaRepository<UserPromotion, In
             "AND up.status = :status")
     List<UserPromotion> findByPromotionAndStatus(@Param("promotion") com.Cybersoft.Final_Capstone.Entity.Promotion promotion,
                                                    @Param("status") com.Cybersoft.Final_Capstone.Entity.Status status);
+
+    /**
+     * Bulk refund: back to ACTIVE + unlocked (PaymentTimeoutJob)
+     */
+    @Modifying
+    @Query("UPDATE UserPromotion up SET up.status = :status, up.isLocked = false, up.updatedAt = :now " +
+            "WHERE up.id IN :ids")
+    int reactivateAll(@Param("ids") Collection<Integer> ids,
+                      @Param("status") com.Cybersoft.Final_Capstone.Entity.Status status,
+                      @Param("now") java.time.LocalDateTime now);
 }
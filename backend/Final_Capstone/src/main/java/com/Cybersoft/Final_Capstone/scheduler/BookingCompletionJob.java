@@ -1,13 +1,15 @@
 package com.Cybersoft.Final_Capstone.scheduler;
 
-import com.Cybersoft.Final_Capstone.Entity.Booking;
 import com.Cybersoft.Final_Capstone.Entity.Status;
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
 import com.Cybersoft.Final_Capstone.repository.BookingRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -15,6 +17,8 @@ import java.util.List;
 /**
  * Scheduled job to auto-complete PAID bookings where check-out date has passed
  * Runs every hour
+ *
+ * NOTE: Chunked bulk UPDATE (jobs.chunk-size per transaction), same pattern as PaymentTimeoutJob
  */
 @Component
 @RequiredArgsConstructor
@@ -22,49 +26,74 @@ import java.util.List;
 public class BookingCompletionJob {
 
     private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseManager jobLeaseManager;
+
+    @Value("${jobs.chunk-size:500}")
+    private int chunkSize;
 
     /**
      * Auto-complete PAID bookings where check_out < now
      * Cron: Every hour at :00
      */
     @Scheduled(cron = "0 0 * * * *")
-    @Transactional
     public void completeFinishedBookings() {
+        jobLeaseManager.runExclusively("booking-completion", this::completeInChunks);
+    }
+
+    private void completeInChunks() {
         log.info("🕐 Running booking completion job...");
 
-        // Find PAID bookings where check_out < now
         LocalDateTime now = LocalDateTime.now();
-        List<Booking> finishedBookings = bookingRepository.findToComplete(now);
+        long start = System.nanoTime();
+        int completedCount = 0;
 
-        if (finishedBookings.isEmpty()) {
+        while (true) {
+            Integer processed;
+            try {
+                processed = transactionTemplate.execute(status -> completeChunk(now));
+            } catch (Exception e) {
+                log.error("Failed to complete bookings chunk: {}", e.getMessage(), e);
+                break;
+            }
+            if (processed == null || processed == 0) {
+                break;
+            }
+            completedCount += processed;
+            if (processed < chunkSize) {
+                break;
+            }
+        }
+
+        if (completedCount == 0) {
             log.info("✅ No bookings to complete");
             return;
         }
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("✅ Booking completion job finished. Completed {} bookings in {} ms ({} bookings/s)",
+                completedCount, elapsedMs, completedCount * 1000L / elapsedMs);
+    }
 
-        log.info("📋 Found {} bookings to mark as COMPLETED", finishedBookings.size());
-
-        for (Booking booking : finishedBookings) {
-            try {
-                booking.setStatus(new Status(9)); // COMPLETED
-
-                bookingRepository.save(booking);
-
-                log.info("✅ Completed booking {} (guest: {}, property: {}, check-out: {})",
-                        booking.getId(),
-                        booking.getUser().getEmail(),
-                        booking.getProperty().getPropertyName(),
-                        booking.getCheckOut());
+    private int completeChunk(LocalDateTime now) {
+        List<Integer> ids = bookingRepository.lockToCompleteIds(now, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
 
-                // TODO: Send notification to guest (ask for review)
-                // TODO: Update property availability
+        List<BookingRepository.TransitionRow> rows = bookingRepository.findTransitionRowsByIds(ids);
+        bookingRepository.bulkUpdateStatus(ids, new Status(9), LocalDateTime.now()); // COMPLETED
 
-            } catch (Exception e) {
-                log.error("Failed to complete booking {}: {}", booking.getId(), e.getMessage(), e);
-            }
+        for (BookingRepository.TransitionRow row : rows) {
+            eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                    row.getBookingId(), row.getPropertyId(), row.getCheckIn(), row.getCheckOut(),
+                    "PAID", "COMPLETED", row.getTotalPrice()));
         }
 
-        log.info("✅ Booking completion job finished. Completed {} bookings", finishedBookings.size());
+        log.info("✅ Completed {} bookings", ids.size());
+        log.debug("Completed booking ids: {}", ids);
+
+        // TODO: Send notification to guest (ask for review)
+        return ids.size();
     }
 }
-
-
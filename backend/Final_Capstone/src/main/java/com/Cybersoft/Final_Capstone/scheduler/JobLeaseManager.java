@@ -0,0 +1,124 @@
+package com.Cybersoft.Final_Capstone.scheduler;
+
+import com.Cybersoft.Final_Capstone.repository.JobLeaseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DB-backed leader election for scheduled jobs (table job_lease, no external service)
+ * - runExclusively: chỉ 1 instance chạy job mỗi tick, các instance khác skip
+ * - Lease TTL được renew định kỳ khi job chạy lâu; instance chết -> lease hết hạn -> node khác nhận ở tick sau
+ * - Metrics: scheduler.lease.acquired / contended / lost (tag job), scheduler.job.duration
+ */
+@Component
+@Slf4j
+public class JobLeaseManager {
+
+    private final JobLeaseRepository jobLeaseRepository;
+    private final MeterRegistry meterRegistry;
+    private final String owner;
+    private final Set<String> knownJobs = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService renewalExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "job-lease-renewal");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${jobs.lease.enabled:true}")
+    private boolean enabled;
+
+    @Value("${jobs.lease.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${jobs.lease.min-hold-seconds:30}")
+    private long minHoldSeconds;
+
+    public JobLeaseManager(JobLeaseRepository jobLeaseRepository, MeterRegistry meterRegistry) {
+        this.jobLeaseRepository = jobLeaseRepository;
+        this.meterRegistry = meterRegistry;
+        this.owner = instanceName() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Run the job only if this instance gets the lease for it
+     * @return true if the job ran here, false if another instance holds the lease
+     */
+    public boolean runExclusively(String jobName, Runnable job) {
+        if (!enabled) {
+            job.run();
+            return true;
+        }
+
+        long leaseMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        if (knownJobs.add(jobName)) {
+            jobLeaseRepository.ensureExists(jobName);
+        }
+        if (jobLeaseRepository.tryAcquire(jobName, owner, leaseMillis) == 0) {
+            meterRegistry.counter("scheduler.lease.contended", "job", jobName).increment();
+            log.debug("🔒 Job {} is running on another instance, skipping", jobName);
+            return false;
+        }
+        meterRegistry.counter("scheduler.lease.acquired", "job", jobName).increment();
+
+        // Renew at 1/3 of the TTL so one missed renewal doesn't lose the lease
+        long renewEvery = Math.max(1, leaseMillis / 3);
+        ScheduledFuture<?> renewal = renewalExecutor.scheduleAtFixedRate(
+                () -> renew(jobName, leaseMillis), renewEvery, renewEvery, TimeUnit.MILLISECONDS);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            job.run();
+            return true;
+        } finally {
+            sample.stop(meterRegistry.timer("scheduler.job.duration", "job", jobName));
+            renewal.cancel(false);
+            try {
+                jobLeaseRepository.release(jobName, owner, TimeUnit.SECONDS.toMillis(minHoldSeconds));
+            } catch (Exception e) {
+                // Lease simply expires after the TTL
+                log.warn("Failed to release lease for job {}: {}", jobName, e.getMessage());
+            }
+        }
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        renewalExecutor.shutdownNow();
+    }
+
+    private void renew(String jobName, long leaseMillis) {
+        try {
+            if (jobLeaseRepository.renew(jobName, owner, leaseMillis) == 0) {
+                meterRegistry.counter("scheduler.lease.lost", "job", jobName).increment();
+                log.warn("⚠️ Lost lease for job {} while it was still running (owner {})", jobName, owner);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to renew lease for job {}: {}", jobName, e.getMessage());
+        }
+    }
+
+    private static String instanceName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
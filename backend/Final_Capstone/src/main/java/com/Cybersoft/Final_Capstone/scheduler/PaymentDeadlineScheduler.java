@@ -0,0 +1,143 @@
+package com.Cybersoft.Final_Capstone.scheduler;
+
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
+import com.Cybersoft.Final_Capstone.events.PaymentDeadlineSetEvent;
+import com.Cybersoft.Final_Capstone.repository.BookingRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory delay queue of payment deadlines (confirmed_at + 24h) for CONFIRMED bookings
+ * - Seeded from DB at startup, then fed by PaymentDeadlineSetEvent (approveBooking, AFTER_COMMIT)
+ * - A single worker thread wakes at the earliest deadline and cancels the due bookings
+ *   through PaymentTimeoutJob.cancelIfExpired (DB re-checks status + deadline under row lock)
+ * - Leaving CONFIRMED (PAID, CANCELLED...) just drops the timer; stale queue entries are skipped
+ *
+ * NOTE: This is only the fast path. PaymentTimeoutJob's cron sweep still catches anything missed
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentDeadlineScheduler {
+
+    // Fire slightly after the deadline so the DB check (confirmed_at < now - 24h) is already true
+    private static final long SLACK_MILLIS = 1000;
+    private static final int MAX_BATCH = 500;
+
+    private final BookingRepository bookingRepository;
+    private final PaymentTimeoutJob paymentTimeoutJob;
+
+    private final DelayQueue<Deadline> queue = new DelayQueue<>();
+    private final Map<Integer, Deadline> scheduled = new ConcurrentHashMap<>();
+    private volatile Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            List<BookingRepository.PaymentDeadlineRow> rows = bookingRepository.findPaymentDeadlines();
+            for (BookingRepository.PaymentDeadlineRow row : rows) {
+                schedule(row.getBookingId(), row.getConfirmedAt().plusHours(24));
+            }
+            log.info("⏰ Payment deadline scheduler loaded {} pending deadlines", rows.size());
+        } catch (Exception e) {
+            log.error("Failed to load payment deadlines, relying on the sweep job: {}", e.getMessage(), e);
+        }
+
+        worker = Thread.ofPlatform().name("payment-deadline").daemon().start(this::run);
+    }
+
+    @PreDestroy
+    public void stop() {
+        Thread current = worker;
+        if (current != null) {
+            current.interrupt();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPaymentDeadlineSet(PaymentDeadlineSetEvent e) {
+        if (e.bookingId() != null && e.deadline() != null) {
+            schedule(e.bookingId(), e.deadline());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent e) {
+        if (e.bookingId() != null && !"CONFIRMED".equals(e.status())) {
+            scheduled.remove(e.bookingId());
+        }
+    }
+
+    /**
+     * Number of bookings currently waiting for their deadline
+     */
+    public int size() {
+        return scheduled.size();
+    }
+
+    void schedule(Integer bookingId, LocalDateTime deadline) {
+        long dueAt = deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() + SLACK_MILLIS;
+        Deadline entry = new Deadline(bookingId, dueAt);
+        // A replaced entry stays in the queue and is skipped when it fires (no O(n) removal)
+        scheduled.put(bookingId, entry);
+        queue.offer(entry);
+    }
+
+    private void run() {
+        List<Deadline> due = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                due.add(queue.take());
+                queue.drainTo(due, MAX_BATCH - 1);
+
+                List<Integer> bookingIds = new ArrayList<>(due.size());
+                for (Deadline entry : due) {
+                    if (scheduled.remove(entry.bookingId(), entry)) {
+                        bookingIds.add(entry.bookingId());
+                    }
+                }
+
+                if (!bookingIds.isEmpty()) {
+                    int cancelled = paymentTimeoutJob.cancelIfExpired(bookingIds);
+                    log.info("⏰ Payment deadline reached for {} bookings, cancelled {}", bookingIds.size(), cancelled);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Leave them to the sweep job rather than spinning on a failing DB
+                log.error("❌ Failed to cancel bookings at payment deadline: {}", e.getMessage(), e);
+            } finally {
+                due.clear();
+            }
+        }
+        log.info("Payment deadline scheduler stopped");
+    }
+
+    private record Deadline(Integer bookingId, long dueAtMillis) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
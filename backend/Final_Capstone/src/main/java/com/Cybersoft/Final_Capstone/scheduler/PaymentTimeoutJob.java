@@ -1,206 +1,182 @@
 package com.Cybersoft.Final_Capstone.scheduler;
 
-import com.Cybersoft.Final_Capstone.Entity.Booking;
-import com.Cybersoft.Final_Capstone.Entity.Promotion;
-import com.Cybersoft.Final_Capstone.Entity.PromotionUsage;
 import com.Cybersoft.Final_Capstone.Entity.Status;
-import com.Cybersoft.Final_Capstone.Entity.UserPromotion;
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
 import com.Cybersoft.Final_Capstone.repository.BookingRepository;
 import com.Cybersoft.Final_Capstone.repository.PromotionRepository;
 import com.Cybersoft.Final_Capstone.repository.PromotionUsageRepository;
-import com.Cybersoft.Final_Capstone.repository.StatusRepository;
 import com.Cybersoft.Final_Capstone.repository.UserPromotionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Scheduled job to auto-cancel CONFIRMED bookings where payment deadline has passed
- * Runs every 15 minutes
+ * - Exact-time cancellation is done by PaymentDeadlineScheduler (cancelIfExpired)
+ * - The cron run is only a low-frequency safety sweep (missed timers, other instances, restarts)
+ *
+ * NOTE: Set-based, chunked
+ * - Mỗi chunk (jobs.chunk-size) = 1 transaction: lock ids (SKIP LOCKED) -> refund promotion theo lô -> 1 bulk UPDATE
+ * - Chunk lỗi chỉ rollback chính nó, các chunk khác vẫn commit
  */
 @Component
 @RequiredArgsConstructor
 @Slf4j
 public class PaymentTimeoutJob {
 
+    private static final String CANCEL_REASON = "Payment deadline expired (24 hours after confirmation)";
+
     private final BookingRepository bookingRepository;
     private final PromotionUsageRepository promotionUsageRepository;
     private final UserPromotionRepository userPromotionRepository;
     private final PromotionRepository promotionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final JobLeaseManager jobLeaseManager;
+
+    @Value("${jobs.chunk-size:500}")
+    private int chunkSize;
 
     /**
-     * Auto-cancel CONFIRMED bookings where (confirmed_at + 24h) < now
-     * Cron: Every 15 minutes
+     * Safety sweep: auto-cancel CONFIRMED bookings where (confirmed_at + 24h) < now
+     * Cron: every hour by default (jobs.payment-timeout.sweep-cron)
      */
-    @Scheduled(cron = "0 */15 * * * *")  // Runs every 15 minutes at :00, :15, :30, :45
-    @Transactional
+    @Scheduled(cron = "${jobs.payment-timeout.sweep-cron:0 0 * * * *}")
     public void cancelExpiredBookings() {
-        LocalDateTime now = LocalDateTime.now();
-        log.info("🕐 ========== PAYMENT TIMEOUT JOB STARTED ==========");
-        log.info("🕐 Current time: {}", now);
+        jobLeaseManager.runExclusively("payment-timeout-sweep", this::sweepExpiredBookings);
+    }
 
-        // Find CONFIRMED bookings where confirmed_at < (now - 24 hours)
+    private void sweepExpiredBookings() {
+        LocalDateTime now = LocalDateTime.now();
         LocalDateTime deadline = now.minusHours(24);
-        log.info("⏰ Deadline (24h ago): {}", deadline);
-        log.info("📋 Looking for CONFIRMED bookings with confirmed_at < {}", deadline);
-
-        List<Booking> expiredBookings = bookingRepository.findExpiredUnpaid(deadline);
-
-        log.info("🔍 Found {} bookings to check", expiredBookings.size());
-
-        if (expiredBookings.isEmpty()) {
-            log.info("✅ No expired bookings found. All good!");
-            log.info("🕐 ========== PAYMENT TIMEOUT JOB COMPLETED ==========\n");
-            return;
-        }
-
-        log.warn("⚠️ Found {} expired bookings to cancel:", expiredBookings.size());
-
-        // Log details of each booking to cancel
-        for (Booking b : expiredBookings) {
-            log.info("   📌 Booking ID: {}, Confirmed at: {}, User: {}, Property: {}",
-                b.getId(),
-                b.getConfirmedAt(),
-                b.getUser().getEmail(),
-                b.getProperty().getPropertyName());
-        }
+        log.info("🕐 Payment timeout job started. Deadline (24h ago): {}, chunk size: {}", deadline, chunkSize);
 
+        long start = System.nanoTime();
         int cancelledCount = 0;
-        int failedCount = 0;
+        int chunks = 0;
 
-        for (Booking booking : expiredBookings) {
+        while (true) {
+            Integer processed;
             try {
-                // Process each booking in separate transaction to prevent rollback cascade
-                cancelSingleBooking(booking);
-                cancelledCount++;
+                processed = transactionTemplate.execute(status -> cancelChunk(deadline));
             } catch (Exception e) {
-                failedCount++;
-                log.error("❌ Failed to cancel booking {}: {}", booking.getId(), e.getMessage(), e);
-                // Continue with next booking - don't let one failure stop the whole job
+                // Stop this run; the failed chunk was rolled back and is picked up again next run
+                log.error("❌ Failed to cancel expired bookings chunk: {}", e.getMessage(), e);
+                break;
+            }
+            if (processed == null || processed == 0) {
+                break;
+            }
+            cancelledCount += processed;
+            chunks++;
+            if (processed < chunkSize) {
+                break;
             }
         }
 
-        log.info("🎯 ========== PAYMENT TIMEOUT JOB COMPLETED ==========");
-        log.info("✅ Successfully cancelled {}/{} bookings", cancelledCount, expiredBookings.size());
-        if (failedCount > 0) {
-            log.warn("⚠️ Failed to cancel {} bookings - check errors above", failedCount);
+        long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        if (cancelledCount == 0) {
+            log.info("✅ No expired bookings found. All good!");
+        } else {
+            log.info("🎯 Payment timeout job completed: cancelled {} bookings in {} chunks, {} ms ({} bookings/s)",
+                    cancelledCount, chunks, elapsedMs, cancelledCount * 1000L / elapsedMs);
         }
-        log.info("🕐 Job finished at: {}\n", LocalDateTime.now());
     }
 
     /**
-     * Cancel a single booking in isolated transaction
-     * REQUIRES_NEW ensures one booking failure doesn't rollback others
+     * Cancel the given bookings if they are still CONFIRMED and past their deadline (one transaction)
+     * Used by PaymentDeadlineScheduler when timers fire
+     * @return number of bookings cancelled
      */
-    @Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW)
-    public void cancelSingleBooking(Booking booking) {
-        // ✅ REFUND PROMOTION before cancelling
-        refundPromotionIfUsed(booking);
+    public int cancelIfExpired(Collection<Integer> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime deadline = LocalDateTime.now().minusHours(24);
+        Integer cancelled = transactionTemplate.execute(status ->
+                cancelLocked(bookingRepository.lockExpiredUnpaidByIds(bookingIds, deadline)));
+        return cancelled == null ? 0 : cancelled;
+    }
 
-        booking.setStatus(new Status(10)); // CANCELLED
-        booking.setCancelledAt(LocalDateTime.now());
-        booking.setCancelledBy("system");
-        booking.setCancelReason("Payment deadline expired (24 hours after confirmation)");
+    /**
+     * One chunk = one transaction
+     * @return number of bookings cancelled
+     */
+    private int cancelChunk(LocalDateTime deadline) {
+        return cancelLocked(bookingRepository.lockExpiredUnpaidIds(deadline, chunkSize));
+    }
 
-        bookingRepository.save(booking);
+    /**
+     * Cancel bookings already locked (FOR UPDATE) by the caller's transaction
+     */
+    private int cancelLocked(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        // Snapshot for events before the status changes
+        List<BookingRepository.TransitionRow> rows = bookingRepository.findTransitionRowsByIds(ids);
+
+        // ✅ REFUND PROMOTIONS before cancelling
+        int refunded = refundPromotions(ids);
 
-        log.info("❌ Cancelled booking {} (guest: {}, property: {})",
-                booking.getId(),
-                booking.getUser().getEmail(),
-                booking.getProperty().getPropertyName());
+        LocalDateTime now = LocalDateTime.now();
+        bookingRepository.bulkCancel(ids, new Status(10), now, CANCEL_REASON); // CANCELLED
+
+        for (BookingRepository.TransitionRow row : rows) {
+            eventPublisher.publishEvent(new BookingStatusChangedEvent(
+                    row.getBookingId(), row.getPropertyId(), row.getCheckIn(), row.getCheckOut(),
+                    "CONFIRMED", "CANCELLED", row.getTotalPrice()));
+        }
+
+        log.info("❌ Cancelled {} expired bookings ({} promotions refunded)", ids.size(), refunded);
+        log.debug("Cancelled booking ids: {}", ids);
 
         // TODO: Send notification to guest
         // TODO: Send notification to host
+        return ids.size();
     }
 
     /**
-     * Refund promotion if it was used for this booking
-     * Called when booking is auto-cancelled due to payment timeout
+     * Refund promotions used by the given bookings, as a set
      *
-     * Logic:
-     * 1. Find PromotionUsage for this booking
-     * 2. Check if promotion is USED (payment successful) - DO NOT REFUND
-     * 3. If INACTIVE (not yet paid):
-     *    - Set UserPromotion back to ACTIVE
-     *    - Unlock UserPromotion
-     *    - Decrement Promotion.timesUsed
-     *    - Delete PromotionUsage record
-     * 4. User can now reuse the same promotion
+     * Logic (same as before, per chunk instead of per booking):
+     * 1. USED promotions (payment successful) - DO NOT REFUND
+     * 2. Otherwise:
+     *    - Delete PromotionUsage records
+     *    - Set UserPromotion back to ACTIVE + unlock
+     *    - Decrement Promotion.timesUsed (one UPDATE per distinct promotion)
+     * 3. User can now reuse the same promotion
      */
-    private void refundPromotionIfUsed(Booking booking) {
-        try {
-            // Find PromotionUsage for this booking
-            Optional<PromotionUsage> usageOpt = promotionUsageRepository.findByBookingId(booking.getId());
-
-            if (usageOpt.isEmpty()) {
-                log.info("ℹ️ No promotion used for booking {}. Nothing to refund.", booking.getId());
-                return;
-            }
-
-            PromotionUsage usage = usageOpt.get();
-            UserPromotion userPromotion = usage.getUserPromotion();
-            Promotion promotion = userPromotion.getPromotion();
-
-            // ✅ NEW: Check if promotion is USED (payment was successful)
-            // USED status means payment was completed before timeout, promotion cannot be refunded
-            if ("USED".equals(userPromotion.getStatus().getName())) {
-                log.warn("⚠️ Cannot refund USED promotion for booking {}. Payment was already completed before timeout.",
-                    booking.getId());
-                log.info("💡 Promotion {} (code: {}) remains USED and locked permanently.",
-                    userPromotion.getId(), promotion.getCode());
-                return; // Do NOT refund
-            }
-
-            // ✅ Only refund if status = INACTIVE (not yet paid)
-            log.info("🔄 Refunding INACTIVE promotion {} for booking {} (payment timeout)",
-                promotion.getCode(), booking.getId());
+    private int refundPromotions(List<Integer> bookingIds) {
+        List<PromotionUsageRepository.RefundRow> refunds = promotionUsageRepository.findRefundableByBookingIds(bookingIds);
+        if (refunds.isEmpty()) {
+            return 0;
+        }
 
-            // 1. CRITICAL: Remove bidirectional references BEFORE deleting to avoid ObjectDeletedException
-            // Clear references from both sides to prevent Hibernate from trying to merge deleted entity
-            if (usage.getBooking() != null) {
-                usage.setBooking(null);
-            }
-            if (usage.getUserPromotion() != null) {
-                usage.setUserPromotion(null);
-            }
+        List<Integer> userPromotionIds = refunds.stream()
+                .map(PromotionUsageRepository.RefundRow::getUserPromotionId)
+                .toList();
 
-            // 2. Delete PromotionUsage record first and flush to DB
-            promotionUsageRepository.delete(usage);
-            promotionUsageRepository.flush(); // Force DELETE to execute NOW before any merge operations
-            log.info("✅ PromotionUsage record deleted and flushed for booking {}", booking.getId());
-
-            // 3. Set UserPromotion back to ACTIVE (now safe to save)
-            Status activeStatus = new Status(1); // ACTIVE = 1
-            userPromotion.setStatus(activeStatus);
-            userPromotion.setIsLocked(false); // Unlock
-            userPromotionRepository.save(userPromotion);
-
-            log.info("✅ UserPromotion {} reactivated (status = ACTIVE)", userPromotion.getId());
-
-            // 4. Decrement Promotion.timesUsed
-            if (promotion.getTimesUsed() > 0) {
-                promotion.setTimesUsed(promotion.getTimesUsed() - 1);
-                promotionRepository.save(promotion);
-                log.info("✅ Promotion {} times_used decremented: {} → {}",
-                    promotion.getCode(),
-                    promotion.getTimesUsed() + 1,
-                    promotion.getTimesUsed());
-            }
+        promotionUsageRepository.deleteByBookingIdsAndUserPromotionIds(bookingIds, userPromotionIds);
+        userPromotionRepository.reactivateAll(userPromotionIds, new Status(1), LocalDateTime.now()); // ACTIVE = 1
 
-            log.info("🎉 Promotion refund complete. User can reuse promotion.");
+        Map<Integer, Long> refundsPerPromotion = refunds.stream()
+                .collect(Collectors.groupingBy(PromotionUsageRepository.RefundRow::getPromotionId, Collectors.counting()));
+        refundsPerPromotion.forEach((promotionId, count) ->
+                promotionRepository.decrementUsageBy(promotionId, count.intValue()));
 
-        } catch (Exception e) {
-            log.error("❌ Error refunding promotion for booking {}: {}",
-                booking.getId(), e.getMessage(), e);
-            // Don't throw - cancellation should still proceed even if refund fails
-        }
+        log.info("🔄 Refunded {} promotions across {} promotion codes", refunds.size(), refundsPerPromotion.size());
+        return refunds.size();
     }
 }
-
-
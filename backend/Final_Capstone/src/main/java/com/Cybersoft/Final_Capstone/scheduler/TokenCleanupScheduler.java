@@ -1,18 +1,28 @@
 package com.Cybersoft.Final_Capstone.scheduler;
 
 import com.Cybersoft.Final_Capstone.repository.TokenRepository;
+import com.Cybersoft.Final_Capstone.repository.TokenStatsRepository;
+import com.Cybersoft.Final_Capstone.service.stats.TokenStatsRecorder;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
 
 /**
  * Scheduled job to cleanup old tokens from database
  * Reduces DB load by removing expired/revoked tokens
+ *
+ * Purges run in bounded chunks (DELETE ... LIMIT, one short transaction each, pause between chunks)
+ * so a multi-million-row backlog never becomes one giant transaction. Every chunk is selected by
+ * predicate, so a run stopped by the time budget simply resumes on the next run
  */
 @Component
 @RequiredArgsConstructor
@@ -20,22 +30,38 @@ public class TokenCleanupScheduler {
 
     private static final Logger logger = LoggerFactory.getLogger(TokenCleanupScheduler.class);
     private final TokenRepository tokenRepository;
+    private final TokenStatsRepository tokenStatsRepository;
+    private final TokenStatsRecorder tokenStatsRecorder;
+    private final JobLeaseManager jobLeaseManager;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${jobs.token-cleanup.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${jobs.token-cleanup.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${jobs.token-cleanup.max-run-minutes:30}")
+    private long maxRunMinutes;
 
     /**
      * Delete expired tokens every day at 2 AM
      * Tokens are considered expired if expires_at < now
      */
     @Scheduled(cron = "0 0 2 * * ?")  // Run at 2:00 AM every day
-    @Transactional
     public void cleanupExpiredTokens() {
-        logger.info("🧹 Starting cleanup of expired tokens...");
+        jobLeaseManager.runExclusively("token-cleanup-expired", () -> {
+            logger.info("🧹 Starting cleanup of expired tokens...");
 
-        Instant now = Instant.now();
+            Instant now = Instant.now();
+            long deadline = deadline();
 
-        // Find and delete all expired tokens (regardless of revoked status)
-        int deletedCount = tokenRepository.deleteByExpiresAtBefore(now);
+            // Delete all expired tokens (regardless of revoked status), revoked flag split for token_stats
+            int active = purge(() -> tokenRepository.deleteExpiredChunk(now, false, chunkSize), false, deadline);
+            int revoked = purge(() -> tokenRepository.deleteExpiredChunk(now, true, chunkSize), true, deadline);
 
-        logger.info("✅ Cleanup completed. Deleted {} expired tokens.", deletedCount);
+            logger.info("✅ Cleanup completed. Deleted {} expired tokens ({} revoked).", active + revoked, revoked);
+        });
     }
 
     /**
@@ -48,17 +74,18 @@ public class TokenCleanupScheduler {
      * - Only delete tokens that are revoked AND older than 7 days
      */
     @Scheduled(cron = "0 0 3 * * ?")  // Run at 3:00 AM every day
-    @Transactional
     public void cleanupOldRevokedTokens() {
-        logger.info("🧹 Starting cleanup of old revoked tokens...");
+        jobLeaseManager.runExclusively("token-cleanup-revoked", () -> {
+            logger.info("🧹 Starting cleanup of old revoked tokens...");
 
-        Instant sevenDaysAgo = Instant.now().minusSeconds(7 * 24 * 3600);
+            Instant sevenDaysAgo = Instant.now().minusSeconds(7 * 24 * 3600);
 
-        // Delete tokens that were revoked more than 7 days ago
-        // This keeps revoked tokens for audit purposes (7 day retention)
-        int deletedCount = tokenRepository.deleteByRevokedTrueAndRevokedAtBefore(sevenDaysAgo);
+            // Delete tokens that were revoked more than 7 days ago
+            // This keeps revoked tokens for audit purposes (7 day retention)
+            int deletedCount = purge(() -> tokenRepository.deleteRevokedBeforeChunk(sevenDaysAgo, chunkSize), true, deadline());
 
-        logger.info("✅ Cleanup completed. Deleted {} old revoked tokens (>7 days).", deletedCount);
+            logger.info("✅ Cleanup completed. Deleted {} old revoked tokens (>7 days).", deletedCount);
+        });
     }
 
     /**
@@ -72,30 +99,86 @@ public class TokenCleanupScheduler {
      * RECOMMENDATION: Enable for first few weeks after deployment, then disable if no duplicates found.
      */
     @Scheduled(cron = "0 0 4 * * ?")  // Run at 4:00 AM every day
-    @Transactional
     public void cleanupDuplicateDeviceTokens() {
-        logger.info("🧹 [OPTIONAL] Starting cleanup of duplicate device tokens...");
-
-        int deletedCount = tokenRepository.deleteOldDuplicateDeviceTokens();
+        jobLeaseManager.runExclusively("token-cleanup-duplicates", () -> {
+            logger.info("🧹 [OPTIONAL] Starting cleanup of duplicate device tokens...");
+
+            int deletedCount = purge(() -> {
+                List<Integer> ids = tokenRepository.findOldDuplicateDeviceTokenIds(chunkSize);
+                return ids.isEmpty() ? 0 : tokenRepository.deleteByIds(ids);
+            }, false, deadline());
+
+            if (deletedCount > 0) {
+                logger.warn("⚠️ Found {} duplicate device tokens! Investigate revoke-before-insert logic.", deletedCount);
+            } else {
+                logger.info("✅ No duplicate device tokens found. Revoke-before-insert working correctly.");
+            }
+        });
+    }
 
-        if (deletedCount > 0) {
-            logger.warn("⚠️ Found {} duplicate device tokens! Investigate revoke-before-insert logic.", deletedCount);
-        } else {
-            logger.info("✅ No duplicate device tokens found. Revoke-before-insert working correctly.");
-        }
+    /**
+     * Recount token_stats from the tokens table once a day, after the purges, to correct drift
+     * (the only full COUNT left; hourly statistics read the counters)
+     */
+    @Scheduled(cron = "0 30 4 * * ?")  // Run at 4:30 AM every day
+    public void reconcileTokenStatistics() {
+        jobLeaseManager.runExclusively("token-stats-reconcile", () -> {
+            tokenStatsRecorder.flush();
+            transactionTemplate.executeWithoutResult(status -> tokenStatsRepository.reconcile());
+            logger.info("📊 Token statistics reconciled from tokens table");
+        });
     }
 
     /**
      * Log token statistics every hour for monitoring
+     * Reads the token_stats row (maintained incrementally) instead of counting the tokens table
      */
     @Scheduled(cron = "0 0 * * * ?")  // Run every hour
-    @Transactional(readOnly = true)
     public void logTokenStatistics() {
-        long totalTokens = tokenRepository.count();
-        long activeTokens = tokenRepository.countByRevokedFalseAndExpiresAtAfter(Instant.now());
-        long revokedTokens = tokenRepository.countByRevokedTrue();
+        jobLeaseManager.runExclusively("token-statistics", () -> {
+            tokenStatsRecorder.flush();
+            tokenStatsRepository.findById(1L).ifPresentOrElse(
+                    stats -> logger.info("📊 Token Statistics - Total: {}, Not revoked: {}, Revoked: {} (reconciled at {})",
+                            stats.getTotalTokens(),
+                            stats.getTotalTokens() - stats.getRevokedTokens(),
+                            stats.getRevokedTokens(),
+                            stats.getReconciledAt()),
+                    () -> logger.warn("📊 Token Statistics - token_stats row missing (run V5_2 migration)"));
+        });
+    }
+
+    /**
+     * Run chunks until one comes back short or the time budget is used up
+     * Each committed chunk is reported to TokenStatsRecorder right away
+     * @param revokedRows true when every row the chunk deletes is revoked
+     * @return rows deleted in this run
+     */
+    private int purge(IntSupplier chunk, boolean revokedRows, long deadline) {
+        int total = 0;
+        while (true) {
+            Integer deleted = transactionTemplate.execute(status -> chunk.getAsInt());
+            int count = deleted != null ? deleted : 0;
+            total += count;
+            tokenStatsRecorder.record(-count, revokedRows ? -count : 0);
+
+            if (count < chunkSize) {
+                return total;
+            }
+            if (System.nanoTime() > deadline) {
+                logger.info("⏸️ Token purge time budget reached after {} rows, resuming next run", total);
+                return total;
+            }
+            try {
+                // Let replication / other writers catch up between chunks
+                Thread.sleep(pauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return total;
+            }
+        }
+    }
 
-        logger.info("📊 Token Statistics - Total: {}, Active: {}, Revoked: {}",
-                   totalTokens, activeTokens, revokedTokens);
+    private long deadline() {
+        return System.nanoTime() + TimeUnit.MINUTES.toNanos(maxRunMinutes);
     }
 }
@@ -3,6 +3,7 @@ package com.Cybersoft.Final_Capstone.service.Imp;
 import com.Cybersoft.Final_Capstone.Entity.*;
 import com.Cybersoft.Final_Capstone.Enum.Gender;
 import com.Cybersoft.Final_Capstone.components.JwtTokenUtil;
+import com.Cybersoft.Final_Capstone.events.UserAccountChangedEvent;
 import com.Cybersoft.Final_Capstone.events.UserCreatedEvent;
 import com.Cybersoft.Final_Capstone.exception.*;
 import com.Cybersoft.Final_Capstone.payload.request.SignInRequest;
@@ -156,6 +157,7 @@ public class AuthServiceImp implements AuthService {
         // Update user record
         user.setAvatar(avatarPath);
         userAccountRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(userId));
 
         return avatarPath;
     }
@@ -213,6 +215,7 @@ public class AuthServiceImp implements AuthService {
         UserAccount user = resetToken.getUserAccount();
         user.setPasswordHash(passwordEncoder.encode(newPassword));
         userAccountRepository.save(user);
+        eventPublisher.publishEvent(new UserAccountChangedEvent(user.getId()));
 
         // Mark token as used
         resetToken.setUsed(true);
@@ -268,15 +271,9 @@ public class AuthServiceImp implements AuthService {
     public String login(SignInRequest signInRequest) throws Exception {
         String usernameOrEmail = signInRequest.getUsernameOrEmail();
         
-        // Try to find user by email first
-        Optional<UserAccount> optionalUserAccount = userAccountRepository.findByEmail(usernameOrEmail);
-        
-        // If not found by email, try username
-        if (optionalUserAccount.isEmpty()) {
-            optionalUserAccount = userAccountRepository.findByUsername(usernameOrEmail);
-        }
-        
-        // If still not found, throw exception
+        // Email or username in one query (email wins if both match different users)
+        Optional<UserAccount> optionalUserAccount = userAccountRepository.resolveLoginIdentifier(usernameOrEmail);
+
         UserAccount existUser = optionalUserAccount.orElseThrow(() -> 
             new DataNotFoundException("Invalid username or email!"));
 
@@ -310,12 +307,8 @@ public class AuthServiceImp implements AuthService {
         String subject = jwtTokenUtil.getSubject(token);
         Optional<UserAccount> user;
 
-        // Try to find by email first
-        user = userAccountRepository.findByEmail(subject);
-        if(user.isEmpty()) {
-            // Then try username
-            user = userAccountRepository.findByUsername(subject);
-        }
+        // Email first, then username (one query)
+        user = userAccountRepository.resolveLoginIdentifier(subject);
 
         return user.orElseThrow(() -> new Exception("User not found"));
     }
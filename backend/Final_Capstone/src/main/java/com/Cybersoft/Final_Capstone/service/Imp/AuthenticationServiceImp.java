@@ -12,7 +12,6 @@ import com.google.gson.Gson;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -24,6 +23,9 @@ import java.util.Map;
 @RequiredArgsConstructor
 @Service
 public class AuthenticationServiceImp implements AuthenticationService {
+    // Shared pooled client (RestTemplateConfig) - connect/read timeouts + keep-alive
+    private final RestTemplate restTemplate;
+
     @Value("${spring.security.oauth2.client.registration.google.client-id}")
     private String googleClientId;
 
@@ -111,11 +113,9 @@ public class AuthenticationServiceImp implements AuthenticationService {
                     // Use the token directly in the URL as a query parameter (alternative approach)
                     String userInfoUrlWithToken = googleUserInfoUri + "?access_token=" + accessToken;
 
-                    RestTemplate googleRestTemplate = new RestTemplate();
-                    googleRestTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
 
                     System.out.println("Fetching user info from Google...");
-                    ResponseEntity<String> googleResponse = googleRestTemplate.getForEntity(userInfoUrlWithToken, String.class);
+                    ResponseEntity<String> googleResponse = restTemplate.getForEntity(userInfoUrlWithToken, String.class);
 
                     System.out.println("Google user info response status: " + googleResponse.getStatusCode());
                     System.out.println("Google user info received successfully");
@@ -132,8 +132,6 @@ public class AuthenticationServiceImp implements AuthenticationService {
 
             case "facebook":
                 try {
-                    RestTemplate facebookRestTemplate = new RestTemplate();
-                    facebookRestTemplate.setRequestFactory(new HttpComponentsClientHttpRequestFactory());
 
                     // Facebook token request setup
                     String urlGetAccessToken = UriComponentsBuilder
@@ -145,7 +143,7 @@ public class AuthenticationServiceImp implements AuthenticationService {
                             .toUriString();
 
                     System.out.println("Fetching Facebook access token...");
-                    ResponseEntity<String> response = facebookRestTemplate.getForEntity(urlGetAccessToken, String.class);
+                    ResponseEntity<String> response = restTemplate.getForEntity(urlGetAccessToken, String.class);
                     ObjectMapper mapper = new ObjectMapper();
                     JsonNode node = mapper.readTree(response.getBody());
                     accessToken = node.get("access_token").asText();
@@ -157,7 +155,7 @@ public class AuthenticationServiceImp implements AuthenticationService {
                     String userInfoUri = facebookUserInfoUri + "&access_token=" + accessToken;
 
                     System.out.println("Fetching Facebook user info...");
-                    ResponseEntity<String> fbUserInfoResponse = facebookRestTemplate.getForEntity(userInfoUri, String.class);
+                    ResponseEntity<String> fbUserInfoResponse = restTemplate.getForEntity(userInfoUri, String.class);
 
                     System.out.println("Facebook user info received successfully");
                     return mapper.readValue(
@@ -4,6 +4,9 @@ import com.Cybersoft.Final_Capstone.Entity.*;
 import com.Cybersoft.Final_Capstone.Enum.DiscountType;
 import com.Cybersoft.Final_Capstone.dto.ApprovalPreviewDTO;
 import com.Cybersoft.Final_Capstone.dto.BookingDTO;
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
+import com.Cybersoft.Final_Capstone.events.PaymentDeadlineSetEvent;
+import com.Cybersoft.Final_Capstone.events.BookingsAutoRejectedEvent;
 import com.Cybersoft.Final_Capstone.exception.DataNotFoundException;
 import com.Cybersoft.Final_Capstone.exception.InvalidException;
 import com.Cybersoft.Final_Capstone.mapper.BookingMapper;
@@ -11,9 +14,11 @@ import com.Cybersoft.Final_Capstone.payload.request.BookingRequest;
 import com.Cybersoft.Final_Capstone.payload.response.PageResponse;
 import com.Cybersoft.Final_Capstone.repository.*;
 import com.Cybersoft.Final_Capstone.service.BookingService;
+import com.Cybersoft.Final_Capstone.service.availability.PropertyAvailabilityIndex;
 import com.Cybersoft.Final_Capstone.specification.BookingSpecification;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -25,7 +30,10 @@ import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -54,6 +62,12 @@ public class BookingServiceImp implements BookingService {
     @Autowired
     private PromotionUsageRepository promotionUsageRepository;
 
+    @Autowired
+    private PropertyAvailabilityIndex availabilityIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Transactional
     @Override
     public Booking createBooking(BookingRequest bookingRequest) {
@@ -81,13 +95,10 @@ public class BookingServiceImp implements BookingService {
 
         // ✅ NEW: Check conflicts với CONFIRMED/PAID bookings only
         // PENDING bookings được phép trùng dates (host sẽ chọn sau)
-        Long conflictCount = bookingRepository.countConflictingConfirmedBookings(
+        if (hasConfirmedConflict(
                 bookingRequest.getPropertyId(),
                 bookingRequest.getCheckIn(),
-                bookingRequest.getCheckOut()
-        );
-
-        if (conflictCount > 0) {
+                bookingRequest.getCheckOut())) {
             throw new InvalidException("Property is already booked for the selected dates");
         }
 
@@ -167,6 +178,7 @@ public class BookingServiceImp implements BookingService {
         booking.setStatus(new Status(6));
 
         Booking savedBooking = bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(savedBooking, null, "PENDING"));
         
         // ========== SAVE BOOKING-PROMOTION LINK IF PROMOTION WAS APPLIED ==========
         if (appliedUserPromotion != null) {
@@ -250,8 +262,9 @@ public class BookingServiceImp implements BookingService {
                 .orElseThrow(() -> new DataNotFoundException("Booking not found with id: " + id));
 
         // Map status name to ID
+        String newStatus = statusName.toUpperCase(Locale.ROOT);
         Status status;
-        switch (statusName.toUpperCase()) {
+        switch (newStatus) {
             case "ACTIVE":
                 status = new Status(1);
                 break;
@@ -292,8 +305,12 @@ public class BookingServiceImp implements BookingService {
                 throw new DataNotFoundException("Status not found with name: " + statusName);
         }
 
+        String previousStatus = booking.getStatus().getName();
         booking.setStatus(status);
         Booking updatedBooking = bookingRepository.save(booking);
+        // Publish the requested (upper-cased) name, never the name carried by the Status object:
+        // PropertyAvailabilityIndex drops the stay for any name outside CONFIRMED/PAID
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(updatedBooking, previousStatus, newStatus));
 
         return BookingMapper.toDTO(updatedBooking);
     }
@@ -332,6 +349,7 @@ public class BookingServiceImp implements BookingService {
         booking.setCancelReason(cancelReason != null ? cancelReason : "Cancelled by guest");
 
         Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(saved, status, "CANCELLED"));
 
         log.info("✅ Booking {} cancelled by guest. Reason: {}", id, cancelReason);
 
@@ -461,7 +479,9 @@ public class BookingServiceImp implements BookingService {
     public void deleteBooking(Integer id) {
         Booking booking = bookingRepository.findById(id)
                 .orElseThrow(() -> new DataNotFoundException("Booking not found with id: " + id));
+        String previousStatus = booking.getStatus().getName();
         bookingRepository.delete(booking);
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(booking, previousStatus, "DELETED"));
     }
 
     @Override
@@ -469,13 +489,7 @@ public class BookingServiceImp implements BookingService {
         LocalDateTime checkInDate = LocalDateTime.parse(checkIn);
         LocalDateTime checkOutDate = LocalDateTime.parse(checkOut);
 
-        Long conflictCount = bookingRepository.countConflictingBookings(
-                propertyId,
-                checkInDate,
-                checkOutDate
-        );
-
-        return conflictCount == 0;
+        return !hasConfirmedConflict(propertyId, checkInDate, checkOutDate);
     }
 
     @Override
@@ -523,6 +537,17 @@ public class BookingServiceImp implements BookingService {
 
     // Helper methods
 
+    /**
+     * Check overlap with CONFIRMED/PAID bookings
+     * Served from the in-memory index; falls back to the COUNT query while the index is not loaded
+     */
+    private boolean hasConfirmedConflict(Integer propertyId, LocalDateTime checkIn, LocalDateTime checkOut) {
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.hasConflict(propertyId, checkIn, checkOut);
+        }
+        return bookingRepository.countConflictingConfirmedBookings(propertyId, checkIn, checkOut) > 0;
+    }
+
     private void validateBookingDates(LocalDateTime checkIn, LocalDateTime checkOut) {
         if (checkIn == null || checkOut == null) {
             throw new InvalidException("Check-in and check-out dates are required");
@@ -634,13 +659,26 @@ public class BookingServiceImp implements BookingService {
             throw new InvalidException("Only PENDING bookings can be approved. Current status: " + booking.getStatus().getName());
         }
 
-        // 4. Update booking to CONFIRMED
+        // 4. Verify against DB (source of truth) while holding the lock
+        //    The in-memory index is only a fast path for createBooking/isPropertyAvailable
+        Long conflictCount = bookingRepository.countConflictingConfirmedBookings(
+                booking.getProperty().getId(),
+                booking.getCheckIn(),
+                booking.getCheckOut()
+        );
+        if (conflictCount > 0) {
+            throw new InvalidException("Property is already booked for the selected dates");
+        }
+
+        // 5. Update booking to CONFIRMED
         booking.setStatus(new Status(7)); // CONFIRMED
         booking.setConfirmedAt(LocalDateTime.now());
 
         Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(saved, "PENDING", "CONFIRMED"));
+        eventPublisher.publishEvent(new PaymentDeadlineSetEvent(saved.getId(), saved.getPaymentDeadline()));
 
-        // 5. Auto-reject conflicting PENDING bookings
+        // 6. Auto-reject conflicting PENDING bookings
         int rejectedCount = bookingRepository.autoRejectConflicts(
                 booking.getProperty().getId(),
                 booking.getCheckIn(),
@@ -648,6 +686,9 @@ public class BookingServiceImp implements BookingService {
                 bookingId,
                 "Automatically rejected: Another booking was approved for overlapping dates"
         );
+        if (rejectedCount > 0) {
+            eventPublisher.publishEvent(new BookingsAutoRejectedEvent(booking.getProperty().getId(), rejectedCount));
+        }
 
         log.info("✅ Booking {} approved. Auto-rejected {} conflicting bookings", bookingId, rejectedCount);
 
@@ -688,6 +729,7 @@ public class BookingServiceImp implements BookingService {
         booking.setCancelReason(reason != null ? reason : "Host rejected the booking request");
 
         Booking saved = bookingRepository.save(booking);
+        eventPublisher.publishEvent(BookingStatusChangedEvent.of(saved, "PENDING", "REJECTED"));
 
         log.info("✅ Booking {} rejected by host. Reason: {}", bookingId, reason);
 
@@ -796,8 +838,17 @@ public class BookingServiceImp implements BookingService {
      * Used for user bookings that need promotion details
      */
     private PageResponse<BookingDTO> buildBookingPageResponseWithPromotion(Page<Booking> bookingPage) {
+        // One IN query for the whole page, stitched by booking id
+        Map<Integer, PromotionUsage> usageByBooking = new HashMap<>();
+        if (bookingPage.hasContent()) {
+            List<Integer> bookingIds = bookingPage.getContent().stream().map(Booking::getId).toList();
+            for (PromotionUsage usage : promotionUsageRepository.findWithPromotionByBookingIds(bookingIds)) {
+                usageByBooking.put(usage.getId().getBookingId(), usage);
+            }
+        }
+
         List<BookingDTO> bookingDTOs = bookingPage.getContent().stream()
-                .map(booking -> BookingMapper.toDTOWithPromotion(booking, promotionUsageRepository))
+                .map(booking -> BookingMapper.toDTOWithPromotion(booking, usageByBooking.get(booking.getId())))
                 .toList();
 
         return PageResponse.<BookingDTO>builder()
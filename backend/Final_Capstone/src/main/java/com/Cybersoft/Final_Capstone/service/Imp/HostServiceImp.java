@@ -5,12 +5,12 @@ import com.Cybersoft.Final_Capstone.dto.*;
 import com.Cybersoft.Final_Capstone.exception.DataNotFoundException;
 import com.Cybersoft.Final_Capstone.repository.*;
 import com.Cybersoft.Final_Capstone.service.HostService;
+import com.Cybersoft.Final_Capstone.service.stats.HostStatsService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.List;
 
 @Service
 public class HostServiceImp implements HostService {
@@ -19,10 +19,7 @@ public class HostServiceImp implements HostService {
     private UserAccountRepository userAccountRepository;
 
     @Autowired
-    private PropertyRepository propertyRepository;
-
-    @Autowired
-    private BookingRepository bookingRepository;
+    private HostStatsService hostStatsService;
 
     // ==================== REMOVED DUPLICATE METHODS ====================
     // ❌ getHostProfile() - Use UserService.getMyProfile() + GET /users/me/details instead
@@ -49,62 +46,29 @@ public class HostServiceImp implements HostService {
         // Verify host exists
         UserAccount host = userAccountRepository.findById(hostId)
                 .orElseThrow(() -> new DataNotFoundException("Host not found with id: " + hostId));
-        
-        List<Booking> allBookings = bookingRepository.findByHostId(hostId);
-        List<Property> properties = propertyRepository.findByHostId(hostId);
-        
+
+        // Single-row read, maintained by HostStatsEventListener
+        HostStats hostStats = hostStatsService.getOrRebuild(hostId);
+
         HostStatisticsDTO stats = new HostStatisticsDTO();
         stats.setHostId(hostId);
         stats.setHostName(host.getFullName());
-        stats.setTotalProperties(properties.size());
-        stats.setTotalBookings(allBookings.size());
-        
-        // Count bookings by status
-        long pendingCount = allBookings.stream()
-                .filter(b -> "Pending".equals(b.getStatus().getName()))
-                .count();
-        stats.setPendingBookings((int) pendingCount);
-        
-        long confirmedCount = allBookings.stream()
-                .filter(b -> "Confirmed".equals(b.getStatus().getName()))
-                .count();
-        stats.setConfirmedBookings((int) confirmedCount);
-        
-        long completedCount = allBookings.stream()
-                .filter(b -> "Completed".equals(b.getStatus().getName()))
-                .count();
-        stats.setCompletedBookings((int) completedCount);
-        
-        long cancelledCount = allBookings.stream()
-                .filter(b -> "Cancelled".equals(b.getStatus().getName()) || 
-                            "Rejected".equals(b.getStatus().getName()))
-                .count();
-        stats.setCancelledBookings((int) cancelledCount);
-        
-        // Calculate total revenue from completed bookings
-        BigDecimal totalRevenue = allBookings.stream()
-                .filter(b -> "Completed".equals(b.getStatus().getName()))
-                .map(Booking::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        stats.setTotalRevenue(totalRevenue);
-        
-        // Calculate average rating across all properties
-        BigDecimal totalRating = properties.stream()
-                .map(Property::getOverallRating)
-                .filter(rating -> rating != null && rating.compareTo(BigDecimal.ZERO) > 0)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-        
-        long propertiesWithRating = properties.stream()
-                .filter(p -> p.getOverallRating() != null && p.getOverallRating().compareTo(BigDecimal.ZERO) > 0)
-                .count();
-        
-        if (propertiesWithRating > 0) {
-            stats.setAverageRating(totalRating.divide(
-                    BigDecimal.valueOf(propertiesWithRating), 2, RoundingMode.HALF_UP));
+        stats.setTotalProperties(hostStats.getTotalProperties());
+        stats.setTotalBookings(hostStats.getTotalBookings());
+        stats.setPendingBookings(hostStats.getPendingBookings());
+        stats.setConfirmedBookings(hostStats.getConfirmedBookings());
+        stats.setCompletedBookings(hostStats.getCompletedBookings());
+        stats.setCancelledBookings(hostStats.getCancelledBookings());
+        stats.setTotalRevenue(hostStats.getTotalRevenue());
+
+        // Average rating across properties that have a rating
+        if (hostStats.getRatedProperties() > 0) {
+            stats.setAverageRating(hostStats.getRatingSum().divide(
+                    BigDecimal.valueOf(hostStats.getRatedProperties()), 2, RoundingMode.HALF_UP));
         } else {
             stats.setAverageRating(BigDecimal.ZERO);
         }
-        
+
         return stats;
     }
 }
@@ -11,6 +11,7 @@ import com.Cybersoft.Final_Capstone.payload.response.PayOSPaymentResponse;
 import com.Cybersoft.Final_Capstone.repository.BookingRepository;
 import com.Cybersoft.Final_Capstone.repository.TransactionRepository;
 import com.Cybersoft.Final_Capstone.service.PayOSService;
+import com.Cybersoft.Final_Capstone.util.PayOSSignatureUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpEntity;
@@ -24,34 +25,32 @@ import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
-import java.util.HexFormat;
 import java.util.List;
 
 @Service
 public class PayOSServiceImp implements PayOSService {
     private static final Logger LOGGER = LoggerFactory.getLogger(PayOSServiceImp.class);
-    private static final String HMAC_SHA256 = "HmacSHA256";
 
     private final RestTemplate restTemplate;
     private final PayOSConfig payOSConfig;
     private final TransactionRepository transactionRepository;
     private final BookingRepository bookingRepository;
+    private final PayOSSignatureUtils signatureUtils;
 
     public PayOSServiceImp(RestTemplate restTemplate,
                            PayOSConfig payOSConfig,
                            TransactionRepository transactionRepository,
-                           BookingRepository bookingRepository) {
+                           BookingRepository bookingRepository,
+                           PayOSSignatureUtils signatureUtils) {
         this.restTemplate = restTemplate;
         this.payOSConfig = payOSConfig;
         this.transactionRepository = transactionRepository;
         this.bookingRepository = bookingRepository;
+        this.signatureUtils = signatureUtils;
     }
 
     @Override
@@ -72,12 +71,27 @@ public class PayOSServiceImp implements PayOSService {
         Booking fullBooking = bookingRepository.findByIdWithDetails(booking.getId())
                 .orElseThrow(() -> new PayOSException("Booking not found with id: " + booking.getId()));
 
-        PayOSPaymentRequest paymentRequest = buildRequestPayload(fullBooking.getId(), orderCode);
+        PayOSPaymentData paymentData = sendPaymentRequest(buildRequestPayload(fullBooking, orderCode));
+        persistTransaction(fullBooking, paymentData, orderCode);
+        return paymentData;
+    }
+
+    @Override
+    public PayOSPaymentRequest buildPaymentRequest(Booking booking, String orderCode) {
+        validateConfiguration();
+        return buildRequestPayload(booking, orderCode);
+    }
+
+    /**
+     * Pure HTTP call (no repository access) - safe to run without a DB connection/transaction
+     */
+    @Override
+    public PayOSPaymentData sendPaymentRequest(PayOSPaymentRequest paymentRequest) {
         HttpHeaders headers = buildHeaders();
 
         try {
-            LOGGER.info("Creating PayOS payment for booking ID: {}, orderCode: {}, amount: {}",
-                fullBooking.getId(), orderCode, fullBooking.getTotalPrice());
+            LOGGER.info("Creating PayOS payment, orderCode: {}, amount: {}",
+                paymentRequest.getOrderCode(), paymentRequest.getAmount());
             LOGGER.info("PayOS endpoint: {}", payOSConfig.getEndpoint());
             LOGGER.info("PayOS request payload: {}", paymentRequest);
 
@@ -134,9 +148,9 @@ public class PayOSServiceImp implements PayOSService {
                 paymentData.setMessage(responseBody.getDesc());
             }
 
-            persistTransaction(fullBooking, paymentData, orderCode);
-
             return paymentData;
+        } catch (PayOSException ex) {
+            throw ex;
         } catch (HttpStatusCodeException ex) {
             String message = String.format("PayOS request failed with status %s: %s", ex.getStatusCode(), ex.getResponseBodyAsString());
             LOGGER.error(message, ex);
@@ -176,9 +190,8 @@ public class PayOSServiceImp implements PayOSService {
         }
     }
 
-    private PayOSPaymentRequest buildRequestPayload(Integer bookingId, String orderCode) {
-        Booking booking = bookingRepository.findByIdWithDetails(bookingId)
-                .orElseThrow(() -> new PayOSException("Booking not found"));
+    private PayOSPaymentRequest buildRequestPayload(Booking booking, String orderCode) {
+        Integer bookingId = booking.getId();
 
         // ✅ Convert orderCode to int for PayOS (PayOS requires integer type)
         int orderCodeInt;
@@ -284,28 +297,10 @@ public class PayOSServiceImp implements PayOSService {
     }
 
     private String generateSignature(long amount, String cancelUrl, String description, int orderCode, String returnUrl) {
-        // ✅ PayOS yêu cầu KHÔNG encode các giá trị khi tạo signature
-        // Chỉ cần sắp xếp theo thứ tự alphabet và nối chuỗi
+        // ✅ PayOS yêu cầu KHÔNG encode các giá trị khi tạo signature (canonical string built by PayOSSignatureUtils)
         try {
-            // Build signature string (alphabetically sorted) - KHÔNG encode
-            String rawData = String.format("amount=%d&cancelUrl=%s&description=%s&orderCode=%d&returnUrl=%s",
-                    amount, cancelUrl, description, orderCode, returnUrl);
-
-            LOGGER.info("🔐 Signature raw data: {}", rawData);
-            LOGGER.info("🔑 Checksum key length: {}", payOSConfig.getChecksumKey().length());
-
-            Mac mac = Mac.getInstance(HMAC_SHA256);
-            SecretKeySpec secretKeySpec = new SecretKeySpec(
-                    payOSConfig.getChecksumKey().getBytes(StandardCharsets.UTF_8),
-                    HMAC_SHA256
-            );
-            mac.init(secretKeySpec);
-            byte[] hmac = mac.doFinal(rawData.getBytes(StandardCharsets.UTF_8));
-
-            // Convert to lowercase hex (PayOS requires lowercase)
-            String signature = HexFormat.of().formatHex(hmac);
-            LOGGER.info("🔐 Generated signature: {}", signature);
-
+            String signature = signatureUtils.signPaymentRequest(amount, cancelUrl, description, orderCode, returnUrl);
+            LOGGER.debug("🔐 Generated signature for orderCode {}", orderCode);
             return signature;
         } catch (Exception ex) {
             throw new PayOSException("Failed to generate PayOS signature", ex);
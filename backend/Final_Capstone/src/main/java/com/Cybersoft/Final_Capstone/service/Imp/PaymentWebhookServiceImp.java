@@ -5,26 +5,29 @@ import com.Cybersoft.Final_Capstone.Entity.PromotionUsage;
 import com.Cybersoft.Final_Capstone.Entity.Status;
 import com.Cybersoft.Final_Capstone.Entity.Transaction;
 import com.Cybersoft.Final_Capstone.Entity.UserPromotion;
-import com.Cybersoft.Final_Capstone.config.PayOSConfig;
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
+import com.Cybersoft.Final_Capstone.events.PaymentWebhookReceivedEvent;
 import com.Cybersoft.Final_Capstone.payload.request.PayOSWebhookRequest;
 import com.Cybersoft.Final_Capstone.repository.BookingRepository;
+import com.Cybersoft.Final_Capstone.repository.PaymentWebhookEventRepository;
 import com.Cybersoft.Final_Capstone.repository.PromotionUsageRepository;
 import com.Cybersoft.Final_Capstone.repository.StatusRepository;
 import com.Cybersoft.Final_Capstone.repository.TransactionRepository;
 import com.Cybersoft.Final_Capstone.repository.UserPromotionRepository;
 import com.Cybersoft.Final_Capstone.service.PaymentWebhookService;
+import com.Cybersoft.Final_Capstone.util.PayOSSignatureUtils;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -36,7 +39,51 @@ public class PaymentWebhookServiceImp implements PaymentWebhookService {
     private final StatusRepository statusRepository;
     private final PromotionUsageRepository promotionUsageRepository;
     private final UserPromotionRepository userPromotionRepository;
-    private final PayOSConfig payOSConfig;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PaymentWebhookEventRepository webhookEventRepository;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final PayOSSignatureUtils signatureUtils;
+
+    /**
+     * NOTE: Ingest nhanh, xử lý async
+     * - Verify signature -> INSERT IGNORE theo UNIQUE (order_code, reference) -> ack ngay
+     * - PayOS retry (cùng orderCode + reference) bị bỏ qua bởi unique index, không xử lý lại
+     * - PaymentWebhookWorker xử lý sau qua PaymentWebhookReceivedEvent
+     */
+    @Override
+    public boolean ingestWebhook(PayOSWebhookRequest webhookRequest) {
+        // ⚠️ Handle PayOS test webhook (data is null)
+        if (webhookRequest.getData() == null) {
+            return false;
+        }
+
+        if (!verifySignature(webhookRequest)) {
+            log.error("❌ Invalid webhook signature for orderCode: {}", webhookRequest.getData().getOrderCode());
+            throw new RuntimeException("Invalid webhook signature");
+        }
+
+        Long orderCode = webhookRequest.getData().getOrderCode();
+        String reference = webhookRequest.getData().getReference() == null ? "" : webhookRequest.getData().getReference();
+
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(webhookRequest);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Cannot serialize webhook payload", e);
+        }
+
+        if (webhookEventRepository.insertIgnore(orderCode, reference, payload) == 0) {
+            meterRegistry.counter("payment.webhook.duplicate").increment();
+            log.info("ℹ️ Duplicate webhook ignored: orderCode={}, reference={}", orderCode, reference);
+            return false;
+        }
+        meterRegistry.counter("payment.webhook.received").increment();
+
+        webhookEventRepository.findIdByOrderCodeAndReference(orderCode, reference)
+                .ifPresent(id -> eventPublisher.publishEvent(new PaymentWebhookReceivedEvent(id)));
+        return true;
+    }
 
     @Override
     @Transactional
@@ -116,6 +163,12 @@ public class PaymentWebhookServiceImp implements PaymentWebhookService {
             if (isSuccess) {
                 log.info("✅ Processing SUCCESSFUL payment for orderCode: {}", orderCode);
 
+                // Lock the booking row until commit and re-read its status under the lock:
+                // PaymentTimeoutJob / PaymentDeadlineScheduler lock CONFIRMED bookings with SKIP LOCKED,
+                // so they cannot cancel it while the payment is applied
+                Booking booking = transaction.getBooking();
+                Integer lockedStatusId = bookingRepository.lockStatusById(booking.getId()).orElse(null);
+
                 // Update transaction with webhook data
                 PayOSWebhookRequest.PayOSWebhookData data = webhookRequest.getData();
 
@@ -146,18 +199,26 @@ public class PaymentWebhookServiceImp implements PaymentWebhookService {
 
                 transactionRepository.save(transaction);
 
-                // Update booking status to PAID (payment successful)
-                Booking booking = transaction.getBooking();
-
-                booking.setStatus(new Status(8)); // PAID
-                bookingRepository.save(booking);
+                if (Integer.valueOf(8).equals(lockedStatusId)) {
+                    log.info("ℹ️ Booking {} already PAID", booking.getId());
+                } else if (!Integer.valueOf(7).equals(lockedStatusId)) {
+                    // Cancelled (deadline passed) before the payment arrived - keep it cancelled, money needs a refund
+                    meterRegistry.counter("payment.webhook.paid_after_cancel").increment();
+                    log.error("❌ Payment received for booking {} which is no longer CONFIRMED (status id {}) - refund required",
+                            booking.getId(), lockedStatusId);
+                } else {
+                    // Update booking status to PAID (payment successful)
+                    booking.setStatus(new Status(8)); // PAID
+                    bookingRepository.save(booking);
+                    eventPublisher.publishEvent(BookingStatusChangedEvent.of(booking, "CONFIRMED", "PAID"));
 
-                log.info("✅ Booking {} status updated to PAID", booking.getId());
+                    log.info("✅ Booking {} status updated to PAID", booking.getId());
 
-                // ========== MARK PROMOTION AS USED ==========
-                // When payment is successful, change UserPromotion.status from INACTIVE → USED
-                // This prevents refund if user cancels after payment
-                markPromotionAsUsed(booking);
+                    // ========== MARK PROMOTION AS USED ==========
+                    // When payment is successful, change UserPromotion.status from INACTIVE → USED
+                    // This prevents refund if user cancels after payment
+                    markPromotionAsUsed(booking);
+                }
 
                 // TODO: Send notification to user (payment confirmed)
                 // TODO: Send notification to host (booking confirmed + paid)
@@ -223,111 +284,21 @@ public class PaymentWebhookServiceImp implements PaymentWebhookService {
     /**
      * Verify webhook signature using HMAC SHA256
      * According to PayOS documentation, signature is calculated from sorted webhook data fields
+     * (canonical string + thread-local Mac in PayOSSignatureUtils)
      */
     private boolean verifySignature(PayOSWebhookRequest webhookRequest) {
         try {
-            PayOSWebhookRequest.PayOSWebhookData data = webhookRequest.getData();
-
-            // Build signature data string from webhook data
-            // Use TreeMap for automatic alphabetical sorting
-            Map<String, String> signatureData = new TreeMap<>();
-
-            // Add all fields - always include, convert null/'null'/'undefined' to ""
-            addForSignature(signatureData, "accountNumber", data.getAccountNumber());
-            addForSignature(signatureData, "amount", data.getAmount());
-            addForSignature(signatureData, "code", data.getCode());
-            addForSignature(signatureData, "counterAccountBankId", data.getCounterAccountBankId());
-            addForSignature(signatureData, "counterAccountBankName", data.getCounterAccountBankName());
-            addForSignature(signatureData, "counterAccountName", data.getCounterAccountName());
-            addForSignature(signatureData, "counterAccountNumber", data.getCounterAccountNumber());
-            addForSignature(signatureData, "currency", data.getCurrency());
-            addForSignature(signatureData, "desc", data.getDesc());
-            addForSignature(signatureData, "description", data.getDescription());
-            addForSignature(signatureData, "orderCode", data.getOrderCode());
-            addForSignature(signatureData, "paymentLinkId", data.getPaymentLinkId());
-            addForSignature(signatureData, "reference", data.getReference());
-            addForSignature(signatureData, "transactionDateTime", data.getTransactionDateTime());
-            addForSignature(signatureData, "virtualAccountName", data.getVirtualAccountName());
-            addForSignature(signatureData, "virtualAccountNumber", data.getVirtualAccountNumber());
-
-            // Build signature string: key1=value1&key2=value2...
-            String signatureString = signatureData.entrySet().stream()
-                    .map(entry -> entry.getKey() + "=" + entry.getValue())
-                    .collect(Collectors.joining("&"));
-
-            log.info("Signature string: {}", signatureString);
-
-            // Calculate HMAC SHA256
-            String calculatedSignature = calculateHmacSha256(signatureString, payOSConfig.getChecksumKey());
-
-            log.info("Calculated signature: {}", calculatedSignature);
-            log.info("Received signature: {}", webhookRequest.getSignature());
-
-            boolean isValid = calculatedSignature != null
-                    && calculatedSignature.equalsIgnoreCase(webhookRequest.getSignature());
-
+            boolean isValid = signatureUtils.verifyWebhook(webhookRequest.getData(), webhookRequest.getSignature());
             if (!isValid) {
-                log.error("Signature mismatch. Expected: {}, Got: {}", calculatedSignature, webhookRequest.getSignature());
+                log.error("Signature mismatch for orderCode {}", webhookRequest.getData().getOrderCode());
             }
-
             return isValid;
-
         } catch (Exception e) {
             log.error("Error verifying signature: {}", e.getMessage(), e);
             return false;
         }
     }
 
-    /**
-     * Helper method to add field to signature map
-     * Handles null/'null'/'undefined' by converting to empty string
-     * Always adds the field to map (required by PayOS)
-     */
-    private void addForSignature(Map<String, String> map, String key, Object value) {
-        String valueStr;
-        if (value == null) {
-            valueStr = "";
-        } else {
-            String tmp = String.valueOf(value);
-            if ("null".equalsIgnoreCase(tmp) || "undefined".equalsIgnoreCase(tmp)) {
-                valueStr = "";
-            } else {
-                valueStr = tmp;
-            }
-        }
-        map.put(key, valueStr);
-    }
-
-    /**
-     * Calculate HMAC SHA256 hash
-     * Compatible with Java 8+
-     */
-    private String calculateHmacSha256(String data, String key) {
-        try {
-            if (key == null) {
-                throw new IllegalArgumentException("Checksum key is null");
-            }
-            Mac sha256Hmac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(key.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            sha256Hmac.init(secretKey);
-            byte[] hash = sha256Hmac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-
-            // Manual hex conversion for Java 8+ compatibility
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
-                }
-                hexString.append(hex);
-            }
-            return hexString.toString();
-        } catch (Exception e) {
-            log.error("Error calculating HMAC SHA256: {}", e.getMessage(), e);
-            return null;
-        }
-    }
-
     /**
      * Mark UserPromotion as USED when payment is successful
      * This prevents refund if user cancels after payment
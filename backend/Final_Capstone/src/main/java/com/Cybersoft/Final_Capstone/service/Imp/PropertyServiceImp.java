@@ -5,7 +5,9 @@ import com.Cybersoft.Final_Capstone.Enum.PropertyType;
 import com.Cybersoft.Final_Capstone.components.SecurityUtil;
 import com.Cybersoft.Final_Capstone.dto.PropertyDTO;
 import com.Cybersoft.Final_Capstone.dto.PropertyListItemDTO;
+import com.Cybersoft.Final_Capstone.events.PropertyCreatedEvent;
 import com.Cybersoft.Final_Capstone.exception.DataNotFoundException;
+import com.Cybersoft.Final_Capstone.exception.InvalidException;
 import com.Cybersoft.Final_Capstone.mapper.PropertyMapper;
 import com.Cybersoft.Final_Capstone.mapper.PropertyListItemMapper;
 import com.Cybersoft.Final_Capstone.payload.request.PropertyRequest;
@@ -23,13 +25,17 @@ import com.Cybersoft.Final_Capstone.util.PageableBuilder;
 import com.Cybersoft.Final_Capstone.util.PageResponseMapper;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.stream.Collectors.toList;
 
@@ -41,9 +47,15 @@ public class PropertyServiceImp implements PropertyService {
     @Autowired
     private LocationRepository locationRepository;
 
+    @Autowired
+    private ImageRepository imageRepository;
+
     @Autowired
     private SecurityUtil securityUtil;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Autowired
     private ImageServiceImp imageService;
 
@@ -83,7 +95,9 @@ public class PropertyServiceImp implements PropertyService {
                 .orElseThrow(()-> new DataNotFoundException("Location not found with id: " + propertyRequest.getLocationId()));
         property.setLocation(location);
 
-        return propertyRepository.save(property).getId();
+        Property saved = propertyRepository.save(property);
+        eventPublisher.publishEvent(new PropertyCreatedEvent(saved.getId()));
+        return saved.getId();
     }
 
     @Override
@@ -207,7 +221,7 @@ public class PropertyServiceImp implements PropertyService {
         Specification<Property> spec = PropertySpecification.filterProperties(
                 type, city, location, minPrice, maxPrice,
                 bedrooms, bathrooms, maxAdults, maxChildren,
-                maxInfants, maxPets, amenities, facilities, null
+                maxInfants, maxPets, amenities, facilities, null, null, null
         );
 
         List<Property> properties = propertyRepository.findAll(spec);
@@ -254,6 +268,8 @@ public class PropertyServiceImp implements PropertyService {
                 request.getAmenities(),
                 request.getFacilities(),
                 request.getName(),
+                request.getCheckIn(),
+                request.getCheckOut(),
                 pageable
         );
     }
@@ -262,6 +278,8 @@ public class PropertyServiceImp implements PropertyService {
      * NEW: Core paginated search implementation.
      * Used by both GET (query params) and POST (body) endpoints.
      * Returns lightweight DTOs to reduce payload size and avoid N+1 queries.
+     * When checkIn/checkOut are given, only properties free for that window are returned
+     * (resolved in the same query, no per-card isPropertyAvailable calls needed).
      */
     @Override
     public PageResponse<PropertyListItemDTO> searchPropertiesPaginated(
@@ -279,20 +297,41 @@ public class PropertyServiceImp implements PropertyService {
             List<Integer> amenities,
             List<Integer> facilities,
             String name,
+            LocalDateTime checkIn,
+            LocalDateTime checkOut,
             Pageable pageable
     ) {
+        validateStayWindow(checkIn, checkOut);
+
         // Build specification with all filters (reusing existing logic)
         Specification<Property> spec = PropertySpecification.filterProperties(
                 type, city, location, minPrice, maxPrice,
                 bedrooms, bathrooms, maxAdults, maxChildren,
-                maxInfants, maxPets, amenities, facilities, name
+                maxInfants, maxPets, amenities, facilities, name,
+                checkIn, checkOut
         );
 
-        // Execute paginated query
+        // Execute paginated query (host/location/city/status fetched via entity graph)
         Page<Property> page = propertyRepository.findAll(spec, pageable);
 
+        // Thumbnails for the whole page in one query => statement count stays constant per page
+        Map<Integer, String> thumbnails = findThumbnails(page.getContent());
+
         // Convert to PageResponse with lightweight DTOs (DRY - single mapping point)
-        return PageResponseMapper.toPageResponse(page, PropertyListItemMapper::toListItemDTO);
+        return PageResponseMapper.toPageResponse(page,
+                property -> PropertyListItemMapper.toListItemDTO(property, thumbnails));
+    }
+
+    private Map<Integer, String> findThumbnails(List<Property> properties) {
+        if (properties.isEmpty()) {
+            return Map.of();
+        }
+        List<Integer> ids = properties.stream().map(Property::getId).toList();
+        Map<Integer, String> thumbnails = new HashMap<>();
+        for (ImageRepository.ThumbnailRow row : imageRepository.findThumbnailsByPropertyIds(ids)) {
+            thumbnails.put(row.getPropertyId(), row.getImagePath());
+        }
+        return thumbnails;
     }
 
     // Create property with images, amenities, facilities in one transaction. Returns propertyId.
@@ -332,6 +371,21 @@ public class PropertyServiceImp implements PropertyService {
         return propertyId;
     }
 
+    /**
+     * checkIn/checkOut are optional but must be provided together and in order
+     */
+    private void validateStayWindow(LocalDateTime checkIn, LocalDateTime checkOut) {
+        if (checkIn == null && checkOut == null) {
+            return;
+        }
+        if (checkIn == null || checkOut == null) {
+            throw new InvalidException("Both checkIn and checkOut are required to filter by availability");
+        }
+        if (!checkOut.isAfter(checkIn)) {
+            throw new InvalidException("Check-out date must be after check-in date");
+        }
+    }
+
     /**
      * ⚠️ SECURITY: Verify that the logged-in user owns the property
      * Throws SecurityException if user is not the owner
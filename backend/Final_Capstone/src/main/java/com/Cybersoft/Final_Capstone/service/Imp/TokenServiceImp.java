@@ -3,6 +3,9 @@ package com.Cybersoft.Final_Capstone.service.Imp;
 import com.Cybersoft.Final_Capstone.Entity.Token;
 import com.Cybersoft.Final_Capstone.Entity.UserAccount;
 import com.Cybersoft.Final_Capstone.components.JwtTokenUtil;
+import com.Cybersoft.Final_Capstone.components.RevokedTokenRegistry;
+import com.Cybersoft.Final_Capstone.events.RefreshTokensRevokedEvent;
+import com.Cybersoft.Final_Capstone.events.TokenCountsChangedEvent;
 import com.Cybersoft.Final_Capstone.exception.DataNotFoundException;
 import com.Cybersoft.Final_Capstone.exception.ExpiredTokenException;
 import com.Cybersoft.Final_Capstone.payload.response.RefreshTokenResponse;
@@ -13,12 +16,14 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.regex.Pattern;
@@ -51,6 +56,8 @@ public class TokenServiceImp implements TokenService {
 
     private final TokenRepository tokenRepository;
     private final JwtTokenUtil jwtTokenUtil;
+    private final RevokedTokenRegistry revokedTokenRegistry;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Add refresh token with device tracking and 3-device limit enforcement
@@ -102,12 +109,15 @@ public class TokenServiceImp implements TokenService {
             duplicates = tokenRepository.findAllActiveTokensByUserAndUserAgentForUpdate(user, userAgent, now);
         }
 
+        List<String> revokedJtis = new ArrayList<>();
+        int chainDeleted = 0;
         if (!duplicates.isEmpty()) {
             // Revoke ALL duplicates (should be 1, but handle edge cases)
             Instant revokedAt = now;
             for (Token dup : duplicates) {
                 dup.setRevoked(true);
                 dup.setRevokedAt(revokedAt);
+                revokedJtis.add(dup.getJti());
                 if (parentJti == null) {
                     parentJti = dup.getJti(); // Track most recent parent for rotation chain
                 }
@@ -127,6 +137,7 @@ public class TokenServiceImp implements TokenService {
             victim.setRevoked(true);
             victim.setRevokedAt(now);
             tokenRepository.save(victim);
+            revokedJtis.add(victim.getJti());
 
             String victimKey = (victim.getDeviceId() != null) ? victim.getDeviceId() : victim.getUserAgent();
             logger.warn("⚠️ [EVICT] Device limit reached (3). Evicted oldest device. User: {}, VictimDevice: {}", 
@@ -134,7 +145,7 @@ public class TokenServiceImp implements TokenService {
 
             // Cleanup evicted token's rotation chain
             if (victim.getRotatedFrom() != null) {
-                cleanupOldRotationChains(user, null, victim.getRotatedFrom());
+                chainDeleted += cleanupOldRotationChains(user, null, victim.getRotatedFrom());
             }
         }
 
@@ -153,11 +164,16 @@ public class TokenServiceImp implements TokenService {
                 .build();
 
         Token saved = tokenRepository.save(newToken);
+        if (!revokedJtis.isEmpty()) {
+            eventPublisher.publishEvent(new RefreshTokensRevokedEvent(revokedJtis));
+        }
 
         // ========== STEP 5: Cleanup old rotation chains ==========
         if (parentJti != null) {
-            cleanupOldRotationChains(user, saved.getJti(), parentJti);
+            chainDeleted += cleanupOldRotationChains(user, saved.getJti(), parentJti);
         }
+        // Chain cleanup only deletes revoked rows
+        eventPublisher.publishEvent(new TokenCountsChangedEvent(1 - chainDeleted, revokedJtis.size() - chainDeleted));
 
         logger.info("✅ [INSERT] New token added. User: {}, DeviceKey: {}, JTI: {}, ParentJTI: {}", 
                    user.getId(), deviceKey, jti, parentJti);
@@ -186,6 +202,7 @@ public class TokenServiceImp implements TokenService {
                 .build();
 
         tokenRepository.save(newToken);
+        eventPublisher.publishEvent(new TokenCountsChangedEvent(1, 0));
         logger.debug("Refresh token added for user: {}", user.getId());
         return newToken;
     }
@@ -193,15 +210,14 @@ public class TokenServiceImp implements TokenService {
     /**
      * Rotate refresh token with device metadata update
      *
-     * NEW ALGORITHM - REVOKE-BEFORE-INSERT:
+     * SET-BASED ROTATION - fixed number of statements per /auth/refresh:
      * 1. Validate JWT signature
-     * 2. Find token by JTI (with lock)
-     * 3. Check revoked status (detect reuse attack)
-     * 4. Extract deviceId from old token
-     * 5. REVOKE ALL duplicates for same device FIRST (including old token)
-     * 6. Generate new JWT
-     * 7. INSERT new token
-     * 8. Cleanup rotation chains
+     * 2. SELECT token + user by JTI (1 query, no lock)
+     * 3. Check revoked/expired (detect reuse attack)
+     * 4. UPDATE: revoke the presented token iff still active => only one concurrent refresh wins
+     * 5. UPDATE: revoke every other active token of the same device
+     * 6. INSERT new token
+     * 7. DELETE old rotation chain
      *
      * @param refreshTokenString Current refresh token
      * @param request HTTP request for device metadata (optional)
@@ -216,7 +232,14 @@ public class TokenServiceImp implements TokenService {
         }
 
         String jti = jwtTokenUtil.getJtiFromToken(refreshTokenString);
-        Optional<Token> optionalToken = tokenRepository.findByJti(jti);
+
+        // Known-revoked JTI (logout, already rotated) => reject without loading the token
+        if (revokedTokenRegistry.isRevoked(jti)) {
+            logger.warn("⚠️ REUSE ATTACK DETECTED! JTI: {} (revocation filter)", jti);
+            throw new ExpiredTokenException("Refresh token has been revoked. Possible reuse attack!");
+        }
+
+        Optional<Token> optionalToken = tokenRepository.findForRotationByJti(jti);
 
         if (optionalToken.isEmpty()) {
             throw new DataNotFoundException("Refresh token not found in database");
@@ -230,53 +253,46 @@ public class TokenServiceImp implements TokenService {
             throw new ExpiredTokenException("Refresh token has been revoked. Possible reuse attack!");
         }
 
-        if (existingToken.getExpiresAt().isBefore(Instant.now())) {
+        Instant now = Instant.now();
+        if (existingToken.getExpiresAt().isBefore(now)) {
             tokenRepository.delete(existingToken);
             throw new ExpiredTokenException("Refresh token has expired");
         }
 
-        // ========== STEP 3: Extract metadata from old token ==========
+        // ========== STEP 3: Claim the rotation (revoke old token atomically) ==========
+        if (tokenRepository.revokeIfActive(jti, now) == 0) {
+            // Another request rotated this token between our SELECT and UPDATE
+            logger.warn("⚠️ Concurrent refresh lost the race. JTI: {}, User: {}", jti, existingToken.getUser().getId());
+            throw new ExpiredTokenException("Refresh token has been revoked. Possible reuse attack!");
+        }
+        eventPublisher.publishEvent(new RefreshTokensRevokedEvent(List.of(jti)));
+
+        // ========== STEP 4: Extract metadata from old token ==========
         UserAccount user = existingToken.getUser();
         boolean rememberMe = existingToken.isRememberMe();
         String deviceId = existingToken.getDeviceId(); // Preserve deviceId from old token
         String userAgent = request != null ? extractUserAgent(request) : existingToken.getUserAgent();
-        Instant now = Instant.now();
 
-        // ========== STEP 4: REVOKE-BEFORE-INSERT - Revoke ALL duplicates for same device ==========
-        List<Token> duplicates;
-        
+        // ========== STEP 5: REVOKE-BEFORE-INSERT - Revoke ALL duplicates for same device ==========
+        int duplicates;
         if (deviceId != null && !deviceId.isEmpty() && !"Unknown".equals(deviceId)) {
-            duplicates = tokenRepository.findAllActiveTokensByUserAndDeviceForUpdate(user, deviceId, now);
+            duplicates = tokenRepository.revokeActiveByUserAndDevice(user.getId(), deviceId, now);
         } else {
-            duplicates = tokenRepository.findAllActiveTokensByUserAndUserAgentForUpdate(user, userAgent, now);
+            duplicates = tokenRepository.revokeActiveByUserAndUserAgent(user.getId(), userAgent, now);
         }
 
-        // Revoke ALL duplicates (including the current token being rotated)
-        if (!duplicates.isEmpty()) {
-            for (Token dup : duplicates) {
-                dup.setRevoked(true);
-                dup.setRevokedAt(now);
-            }
-            tokenRepository.saveAll(duplicates);
-            
-            logger.info("🔒 [REFRESH] Revoked {} duplicate token(s) for device. User: {}, DeviceId: {}", 
-                       duplicates.size(), user.getId(), deviceId);
+        if (duplicates > 0) {
+            logger.info("🔒 [REFRESH] Revoked {} duplicate token(s) for device. User: {}, DeviceId: {}",
+                       duplicates, user.getId(), deviceId);
         }
 
-        // Also ensure the current token is revoked (in case it wasn't in duplicates list)
-        if (!existingToken.isRevoked()) {
-            existingToken.setRevoked(true);
-            existingToken.setRevokedAt(now);
-            tokenRepository.save(existingToken);
-        }
-
-        // ========== STEP 5: Generate new JWT ==========
+        // ========== STEP 6: Generate new JWT ==========
         String newRefreshTokenJwt = jwtTokenUtil.generateRefreshToken(user, rememberMe, jti);
         String newJti = jwtTokenUtil.getJtiFromToken(newRefreshTokenJwt);
         String newTokenHash = hashToken(newRefreshTokenJwt);
         Instant expiresAt = jwtTokenUtil.getRefreshTokenExpiry(rememberMe);
 
-        // ========== STEP 6: INSERT new token ==========
+        // ========== STEP 7: INSERT new token ==========
         Token newTokenEntity = Token.builder()
                 .user(user)
                 .tokenHash(newTokenHash)
@@ -292,8 +308,9 @@ public class TokenServiceImp implements TokenService {
 
         Token saved = tokenRepository.save(newTokenEntity);
 
-        // ========== STEP 7: Cleanup rotation chains ==========
-        cleanupOldRotationChains(user, saved.getJti(), jti);
+        // ========== STEP 8: Cleanup rotation chains ==========
+        int chainDeleted = deleteOldRotationChain(user, saved.getJti(), jti);
+        eventPublisher.publishEvent(new TokenCountsChangedEvent(1 - chainDeleted, 1 + duplicates - chainDeleted));
 
         logger.info("✅ [REFRESH] Token rotated. User: {}, OldJTI: {}, NewJTI: {}, DeviceId: {}",
                    user.getId(), jti, newJti, deviceId);
@@ -321,26 +338,17 @@ public class TokenServiceImp implements TokenService {
     @Override
     public void revokeToken(String token) {
         String tokenHash = hashToken(token);
-        Optional<Token> optionalToken = tokenRepository.findByTokenHash(tokenHash);
-
-        if (optionalToken.isPresent()) {
-            Token existingToken = optionalToken.get();
-            existingToken.setRevoked(true);
-            existingToken.setRevokedAt(Instant.now());
-            tokenRepository.save(existingToken);
-            logger.info("🔒 Refresh token revoked. User: {}, DeviceId: {}",
-                       existingToken.getUser().getId(), existingToken.getDeviceId());
+        List<String> jtis = tokenRepository.findActiveJtisByTokenHash(tokenHash);
+
+        if (!jtis.isEmpty()) {
+            revokeJtis(jtis);
+            logger.info("🔒 Refresh token revoked. JTI: {}", jtis.get(0));
         }
     }
 
     @Transactional
     public void revokeTokenByJti(String jti) {
-        Optional<Token> optionalToken = tokenRepository.findByJti(jti);
-        if (optionalToken.isPresent()) {
-            Token token = optionalToken.get();
-            token.setRevoked(true);
-            token.setRevokedAt(Instant.now());
-            tokenRepository.save(token);
+        if (revokeJtis(List.of(jti)) > 0) {
             logger.info("🔒 Refresh token revoked by JTI: {}", jti);
         }
     }
@@ -348,33 +356,39 @@ public class TokenServiceImp implements TokenService {
     @Transactional
     @Override
     public void revokeAllUserTokens(UserAccount user) {
-        List<Token> userTokens = tokenRepository.findByUser(user);
-        if (!userTokens.isEmpty()) {
-            Instant now = Instant.now();
-            userTokens.forEach(token -> {
-                token.setRevoked(true);
-                token.setRevokedAt(now);
-            });
-            tokenRepository.saveAll(userTokens);
+        Instant now = Instant.now();
+        // Only unexpired JTIs matter for the revocation filter
+        List<String> validJtis = tokenRepository.findValidJtisByUserId(user.getId(), now);
+        int revoked = tokenRepository.revokeAllByUserId(user.getId(), now);
+        if (revoked > 0) {
+            eventPublisher.publishEvent(new RefreshTokensRevokedEvent(validJtis));
+            eventPublisher.publishEvent(new TokenCountsChangedEvent(0, revoked));
             logger.info("🔒 All refresh tokens revoked for user: {} (logout-all). Total: {}",
-                       user.getId(), userTokens.size());
+                       user.getId(), revoked);
         }
     }
 
     @Transactional
     @Override
     public void revokeAllUserRefreshTokens(UserAccount user) {
-        List<Token> refreshTokens = tokenRepository.findValidRefreshTokensByUser(user, Instant.now());
-        if (!refreshTokens.isEmpty()) {
-            Instant now = Instant.now();
-            refreshTokens.forEach(token -> {
-                token.setRevoked(true);
-                token.setRevokedAt(now);
-            });
-            tokenRepository.saveAll(refreshTokens);
+        List<String> validJtis = tokenRepository.findValidJtisByUserId(user.getId(), Instant.now());
+        if (!validJtis.isEmpty()) {
+            int revoked = revokeJtis(validJtis);
             logger.info("🔒 All active refresh tokens revoked for user: {}. Total: {}",
-                       user.getId(), refreshTokens.size());
+                       user.getId(), revoked);
+        }
+    }
+
+    /**
+     * One UPDATE for the given JTIs + notify RevokedTokenRegistry / TokenStatsRecorder after commit
+     */
+    private int revokeJtis(List<String> jtis) {
+        int revoked = tokenRepository.revokeByJtis(jtis, Instant.now());
+        if (revoked > 0) {
+            eventPublisher.publishEvent(new RefreshTokensRevokedEvent(jtis));
+            eventPublisher.publishEvent(new TokenCountsChangedEvent(0, revoked));
         }
+        return revoked;
     }
 
     /**
@@ -467,8 +481,9 @@ public class TokenServiceImp implements TokenService {
      * @param user User account
      * @param currentJti Current active token JTI (to protect)
      * @param parentJti Immediate parent JTI (1 rotation back, to protect)
+     * @return number of revoked tokens deleted
      */
-    private void cleanupOldRotationChains(UserAccount user, String currentJti, String parentJti) {
+    private int cleanupOldRotationChains(UserAccount user, String currentJti, String parentJti) {
         try {
             // Build list of protected JTIs (tokens we must NOT delete)
             List<String> protectedJtis = new java.util.ArrayList<>();
@@ -477,7 +492,7 @@ public class TokenServiceImp implements TokenService {
 
             // If no protected JTIs, don't run cleanup (avoid deleting everything)
             if (protectedJtis.isEmpty()) {
-                return;
+                return 0;
             }
 
             // Find old rotation chain tokens (revoked tokens NOT in protected list)
@@ -487,9 +502,28 @@ public class TokenServiceImp implements TokenService {
                 tokenRepository.deleteAll(oldTokens);
                 logger.info("🧹 [CLEANUP] Deleted {} old rotation chain tokens for user: {}", oldTokens.size(), user.getId());
             }
+            return oldTokens.size();
+        } catch (Exception e) {
+            // Don't fail the main operation if cleanup fails
+            logger.error("❌ [CLEANUP] Failed to cleanup old rotation chains for user: {}. Error: {}", user.getId(), e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Set-based variant of cleanupOldRotationChains for the refresh path: one DELETE, no row loading
+     */
+    private int deleteOldRotationChain(UserAccount user, String currentJti, String parentJti) {
+        try {
+            int deleted = tokenRepository.deleteRevokedExcept(user.getId(), List.of(currentJti, parentJti));
+            if (deleted > 0) {
+                logger.info("🧹 [CLEANUP] Deleted {} old rotation chain tokens for user: {}", deleted, user.getId());
+            }
+            return deleted;
         } catch (Exception e) {
             // Don't fail the main operation if cleanup fails
             logger.error("❌ [CLEANUP] Failed to cleanup old rotation chains for user: {}. Error: {}", user.getId(), e.getMessage());
+            return 0;
         }
     }
 }
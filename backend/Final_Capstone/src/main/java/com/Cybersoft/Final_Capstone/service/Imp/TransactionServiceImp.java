@@ -2,8 +2,11 @@ package com.Cybersoft.Final_Capstone.service.Imp;
 
 import com.Cybersoft.Final_Capstone.Entity.*;
 import com.Cybersoft.Final_Capstone.components.SecurityUtil;
+import com.Cybersoft.Final_Capstone.components.StripedLocks;
 import com.Cybersoft.Final_Capstone.exception.DataNotFoundException;
 import com.Cybersoft.Final_Capstone.exception.InvalidException;
+import com.Cybersoft.Final_Capstone.exception.PayOSException;
+import com.Cybersoft.Final_Capstone.payload.request.PayOSPaymentRequest;
 import com.Cybersoft.Final_Capstone.payload.request.PaymentInitRequest;
 import com.Cybersoft.Final_Capstone.payload.response.PaymentInitResponse;
 import com.Cybersoft.Final_Capstone.payload.response.PayOSPaymentData;
@@ -15,7 +18,7 @@ import com.Cybersoft.Final_Capstone.service.TransactionService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -41,24 +44,77 @@ public class TransactionServiceImp implements TransactionService {
     @Autowired
     private PayOSService payOSService;
 
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // Per-booking mutual exclusion (thay cho synchronized toàn cục)
+    private final StripedLocks paymentLocks = new StripedLocks(64);
+
+    // An intent without payUrl younger than this may still be waiting on PayOS (other instance)
+    private static final long INTENT_IN_FLIGHT_SECONDS = 60;
+
+    /**
+     * Result of phase 1: either a reusable PENDING transaction or a new intent + signed PayOS payload
+     */
+    private record PaymentIntent(PaymentInitResponse reused, Long transactionId, PayOSPaymentRequest payload) {
+        static PaymentIntent reuse(PaymentInitResponse response) {
+            return new PaymentIntent(response, null, null);
+        }
+
+        static PaymentIntent create(Long transactionId, PayOSPaymentRequest payload) {
+            return new PaymentIntent(null, transactionId, payload);
+        }
+    }
+
+    /**
+     * NOTE: Two-phase payment init, không giữ DB connection trong lúc gọi PayOS
+     * 1. (tx ngắn) Lock booking row, validate, ghi transaction intent PENDING (chưa có payUrl), build payload
+     * 2. (không tx) Gọi PayOS qua pooled HTTP client
+     * 3. (tx ngắn) Finalize intent: payUrl + account info; PayOS lỗi -> intent FAILED (lần sau tạo orderCode Retry mới)
+     * - Lock theo bookingId bao cả 3 phase -> request thứ 2 của cùng booking thấy kết quả đã commit
+     * - /transactions/init không có open-in-view (OpenEntityManagerInViewConfig) => connection trả về pool sau mỗi phase
+     */
     @Override
-    @Transactional
-    public synchronized PaymentInitResponse initPayment(PaymentInitRequest request) {
+    public PaymentInitResponse initPayment(PaymentInitRequest request) {
+        Integer currentUserId = securityUtil.getLoggedInUserId();
+        if (currentUserId == null) {
+            throw new InvalidException("User not authenticated");
+        }
+
+        return paymentLocks.withLock(request.getBookingId(), () -> {
+            PaymentIntent intent = transactionTemplate.execute(status -> preparePayment(request, currentUserId));
+            if (intent.reused() != null) {
+                return intent.reused();
+            }
+
+            PayOSPaymentData paymentData;
+            try {
+                paymentData = payOSService.sendPaymentRequest(intent.payload());
+            } catch (PayOSException e) {
+                transactionTemplate.execute(status -> markIntentFailed(intent.transactionId(), e.getMessage()));
+                throw e;
+            }
+
+            return transactionTemplate.execute(status -> finalizePayment(intent.transactionId(), paymentData));
+        });
+    }
+
+    private PaymentIntent preparePayment(PaymentInitRequest request, Integer currentUserId) {
         log.info("🚀 Initiating payment for booking {}", request.getBookingId());
 
-        // 1. Find booking with details
+        // 1. Lock booking row (same as approveBooking), then load details
+        bookingRepository.findByIdForUpdate(request.getBookingId())
+                .orElseThrow(() -> new DataNotFoundException("Booking not found with id: " + request.getBookingId()));
         Booking booking = bookingRepository.findByIdWithDetails(request.getBookingId())
                 .orElseThrow(() -> new DataNotFoundException("Booking not found with id: " + request.getBookingId()));
 
-        // 2. Validate booking belongs to current user
-        UserAccount currentUser = securityUtil.getLoggedInUser();
-        if (currentUser == null) {
-            throw new InvalidException("User not authenticated");
-        }
-
-        if (!booking.getUser().getId().equals(currentUser.getId())) {
+        // 2. Validate booking belongs to current (active) user
+        if (!booking.getUser().getId().equals(currentUserId)) {
             throw new InvalidException("This booking does not belong to the current user");
         }
+        if (!"ACTIVE".equals(booking.getUser().getStatus().getName())) {
+            throw new InvalidException("User account is not active");
+        }
 
         // 3. Validate booking status = CONFIRMED
         if (!"CONFIRMED".equals(booking.getStatus().getName())) {
@@ -70,6 +126,10 @@ public class TransactionServiceImp implements TransactionService {
             throw new InvalidException("Payment deadline has passed (24h after confirmation). Booking will be auto-cancelled.");
         }
 
+        if (!"PAYOS".equals(request.getPaymentMethod())) {
+            throw new InvalidException("Unsupported payment method: " + request.getPaymentMethod() + ". Only PAYOS is currently supported.");
+        }
+
         // ========== CHECK EXISTING PENDING TRANSACTION ==========
         List<Transaction> existingTransactions = transactionRepository.findByBookingId(booking.getId());
 
@@ -79,6 +139,19 @@ public class TransactionServiceImp implements TransactionService {
                 .findFirst()
                 .orElse(null);
 
+        if (pendingTransaction != null && pendingTransaction.getPayUrl() == null) {
+            // Intent chưa finalize: phase 2/3 của request khác chưa xong hoặc đã crash giữa chừng
+            LocalDateTime inFlightUntil = pendingTransaction.getTransactionDate().plusSeconds(INTENT_IN_FLIGHT_SECONDS);
+            if (LocalDateTime.now().isBefore(inFlightUntil)) {
+                throw new InvalidException("Payment is already being initialized for this booking. Please retry shortly.");
+            }
+            log.warn("⚠️ Abandoned payment intent {} (no payUrl). Marking FAILED.", pendingTransaction.getId());
+            pendingTransaction.setPaymentStatus("FAILED");
+            pendingTransaction.setMessage("Payment link creation did not complete");
+            transactionRepository.save(pendingTransaction);
+            pendingTransaction = null;
+        }
+
         if (pendingTransaction != null) {
             // Có transaction PENDING rồi
             log.info("⚠️ Found existing PENDING transaction {} for booking {}",
@@ -92,14 +165,14 @@ public class TransactionServiceImp implements TransactionService {
                 // PayUrl còn valid, reuse transaction cũ
                 log.info("✅ Reusing existing transaction. PayUrl still valid until {}", expiresAt);
 
-                return PaymentInitResponse.builder()
+                return PaymentIntent.reuse(PaymentInitResponse.builder()
                         .transactionId(pendingTransaction.getId())
                         .orderId(pendingTransaction.getOrderId())
                         .payUrl(pendingTransaction.getPayUrl())
                         .amount(pendingTransaction.getTotalAmount())
                         .paymentMethod(pendingTransaction.getPaymentMethod())
                         .expiresAt(expiresAt)
-                        .build();
+                        .build());
             } else {
                 // PayUrl đã expired (> 60 phút), update transaction thành EXPIRED
                 log.warn("⚠️ Existing transaction expired (> 60 min). Creating new one.");
@@ -143,41 +216,55 @@ public class TransactionServiceImp implements TransactionService {
             log.info("ℹ️ No promotion used for this booking");
         }
 
-        // 7. Call payment gateway (PayOS) with custom orderCode
-        if (!"PAYOS".equals(request.getPaymentMethod())) {
-            throw new InvalidException("Unsupported payment method: " + request.getPaymentMethod() + ". Only PAYOS is currently supported.");
-        }
-
-        // Pass custom orderCode to PayOS (supports retry with unique orderCode)
-        PayOSPaymentData paymentData = payOSService.createPaymentForBooking(booking, orderCode);
-
-        // 8. Find the transaction created by PayOSService (using custom orderCode)
-        Transaction transaction = transactionRepository.findByOrderId(orderCode)
-                .orElseThrow(() -> new RuntimeException("Transaction not found after PayOS call with orderCode: " + orderCode));
+        // 7. Build signed PayOS payload now (needs booking/property data), send it after commit
+        PayOSPaymentRequest payload = payOSService.buildPaymentRequest(booking, orderCode);
 
-        // Update transaction with final amount
+        // 8. Persist the intent: PENDING without payUrl until PayOS answers
+        Transaction transaction = new Transaction();
+        transaction.setUser(booking.getUser());
+        transaction.setBooking(booking);
+        transaction.setOrderId(orderCode);
+        transaction.setPaymentStatus("PENDING");
         transaction.setTotalAmount(finalAmount);
         transaction.setPaymentMethod(request.getPaymentMethod());
         transaction.setPromotionCode(promotionAppliedCode);
         transaction.setDiscountAmount(discountAmount);
+        transactionRepository.save(transaction);
+
+        log.info("💾 Payment intent saved. Transaction ID: {}, OrderId: {}", transaction.getId(), orderCode);
+        return PaymentIntent.create(transaction.getId(), payload);
+    }
+
+    private PaymentInitResponse finalizePayment(Long transactionId, PayOSPaymentData paymentData) {
+        Transaction transaction = transactionRepository.findById(transactionId)
+                .orElseThrow(() -> new DataNotFoundException("Transaction not found with id: " + transactionId));
+
+        transaction.setPayUrl(paymentData.getCheckoutUrl());
+        transaction.setMessage(paymentData.getMessage());
         transaction.setCounterAccountNumber(paymentData.getAccountNumber());
         transaction.setCounterAccountName(paymentData.getAccountName());
         transactionRepository.save(transaction);
 
-        log.info("✅ Payment initialized successfully. Transaction ID: {}, Amount: {}", transaction.getId(), finalAmount);
+        log.info("✅ Payment initialized successfully. Transaction ID: {}, Amount: {}", transaction.getId(), transaction.getTotalAmount());
 
         // 9. Return payment data
         return PaymentInitResponse.builder()
                 .transactionId(transaction.getId())
                 .orderId(transaction.getOrderId())
                 .payUrl(paymentData.getCheckoutUrl())
-                .amount(finalAmount)
-                .paymentMethod(request.getPaymentMethod())
+                .amount(transaction.getTotalAmount())
+                .paymentMethod(transaction.getPaymentMethod())
                 .expiresAt(LocalDateTime.now().plusMinutes(15)) // PayOS default timeout
                 .build();
     }
-}
-
-
-
 
+    private Void markIntentFailed(Long transactionId, String reason) {
+        transactionRepository.findById(transactionId).ifPresent(transaction -> {
+            transaction.setPaymentStatus("FAILED");
+            transaction.setMessage(reason);
+            transactionRepository.save(transaction);
+            log.warn("⚠️ PayOS call failed, intent {} marked FAILED: {}", transactionId, reason);
+        });
+        return null;
+    }
+}
@@ -4,6 +4,7 @@ import com.Cybersoft.Final_Capstone.Entity.Property;
 import com.Cybersoft.Final_Capstone.Entity.UserAccount;
 import com.Cybersoft.Final_Capstone.Entity.UserReview;
 import com.Cybersoft.Final_Capstone.dto.ReviewDTO;
+import com.Cybersoft.Final_Capstone.events.PropertyRatingChangedEvent;
 import com.Cybersoft.Final_Capstone.mapper.ReviewMapper;
 import com.Cybersoft.Final_Capstone.payload.request.UserReviewReuquest;
 import com.Cybersoft.Final_Capstone.repository.PropertyRepository;
@@ -12,6 +13,7 @@ import com.Cybersoft.Final_Capstone.repository.UserReviewRepository;
 import com.Cybersoft.Final_Capstone.service.UserReviewService;
 import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
@@ -31,6 +33,9 @@ public class UserReviewServiceImp implements UserReviewService {
     @Autowired
     private PropertyRepository propertyRepository;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Override
     @Transactional
     public ReviewDTO createReview(UserReviewReuquest request) {
@@ -90,6 +95,7 @@ public class UserReviewServiceImp implements UserReviewService {
 
         // Save will throw ObjectOptimisticLockingFailureException if version changed
         propertyRepository.save(property);
+        eventPublisher.publishEvent(new PropertyRatingChangedEvent(property.getId()));
 
         return ReviewMapper.toDTO(savedReview);
     }
@@ -154,6 +160,7 @@ public class UserReviewServiceImp implements UserReviewService {
                 BigDecimal newAverageRating = totalRating.divide(BigDecimal.valueOf(count), 1, RoundingMode.HALF_UP);
                 property.setOverallRating(newAverageRating);
                 propertyRepository.save(property);
+                eventPublisher.publishEvent(new PropertyRatingChangedEvent(property.getId()));
             }
         }
 
@@ -231,5 +238,6 @@ public class UserReviewServiceImp implements UserReviewService {
         }
 
         propertyRepository.save(property); // Will throw exception if version changed
+        eventPublisher.publishEvent(new PropertyRatingChangedEvent(property.getId()));
     }
 }
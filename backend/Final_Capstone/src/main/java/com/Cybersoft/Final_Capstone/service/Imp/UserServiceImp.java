@@ -2,11 +2,13 @@ package com.Cybersoft.Final_Capstone.service.Imp;
 
 import com.Cybersoft.Final_Capstone.Entity.*;
 import com.Cybersoft.Final_Capstone.dto.*;
+import com.Cybersoft.Final_Capstone.events.UserAccountChangedEvent;
 import com.Cybersoft.Final_Capstone.exception.DataNotFoundException;
 import com.Cybersoft.Final_Capstone.mapper.*;
 import com.Cybersoft.Final_Capstone.repository.*;
 import com.Cybersoft.Final_Capstone.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,7 @@ public class UserServiceImp implements UserService {
 
     private final UserAccountRepository userAccountRepository;
     private final BookingRepository bookingRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public UserProfileDTO getMyProfile(Integer userId) {
@@ -227,6 +230,8 @@ public class UserServiceImp implements UserService {
         }
 
         userAccountRepository.save(user);
+        // Principal đang cache trong JwtTokenFilter phải reload sau khi commit
+        eventPublisher.publishEvent(new UserAccountChangedEvent(userId));
         return getMyProfile(userId);
     }
 
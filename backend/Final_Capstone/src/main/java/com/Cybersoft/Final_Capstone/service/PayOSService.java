@@ -1,7 +1,7 @@
 package com.Cybersoft.Final_Capstone.service;
 
 import com.Cybersoft.Final_Capstone.Entity.Booking;
-import com.Cybersoft.Final_Capstone.Entity.Booking;
+import com.Cybersoft.Final_Capstone.payload.request.PayOSPaymentRequest;
 import com.Cybersoft.Final_Capstone.payload.response.PayOSPaymentData;
 
 public interface PayOSService {
@@ -9,4 +9,10 @@ public interface PayOSService {
 
     // Overloaded method for retry payments with custom orderCode
     PayOSPaymentData createPaymentForBooking(Booking booking, String orderCode);
+
+    // Two-phase flow: build the signed payload while the booking is loaded (inside the DB transaction)
+    PayOSPaymentRequest buildPaymentRequest(Booking booking, String orderCode);
+
+    // ... then call PayOS with no DB connection held (no persistence here)
+    PayOSPaymentData sendPaymentRequest(PayOSPaymentRequest paymentRequest);
 }
@@ -5,6 +5,10 @@ import com.Cybersoft.Final_Capstone.payload.request.PayOSWebhookRequest;
 import java.util.Map;
 
 public interface PaymentWebhookService {
+    // HTTP path: verify + store + ack; true = new webhook queued, false = test/duplicate webhook
+    boolean ingestWebhook(PayOSWebhookRequest webhookRequest);
+
+    // Worker path: apply the webhook to transaction/booking (PaymentWebhookWorker)
     void processWebhook(PayOSWebhookRequest webhookRequest);
     Map<String, Object> getPaymentStatus(Integer bookingId);
 }
@@ -8,6 +8,7 @@ import com.Cybersoft.Final_Capstone.payload.response.PageResponse;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface PropertyService {
@@ -68,6 +69,8 @@ public interface PropertyService {
             List<Integer> amenities,
             List<Integer> facilities,
             String name,
+            LocalDateTime checkIn,
+            LocalDateTime checkOut,
             Pageable pageable
     );
 
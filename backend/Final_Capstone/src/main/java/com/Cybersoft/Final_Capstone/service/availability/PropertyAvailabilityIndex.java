@@ -0,0 +1,185 @@
+package com.Cybersoft.Final_Capstone.service.availability;
+
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
+import com.Cybersoft.Final_Capstone.repository.BookingRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory index of CONFIRMED/PAID stays per property
+ * - Loaded once at startup, then kept in sync by BookingStatusChangedEvent (AFTER_COMMIT)
+ * - Reads are lock-free: each property holds an immutable snapshot sorted by check-in
+ * - Overlap query = binary search + prefix max of check-out => O(log n)
+ *
+ * NOTE: This is only a fast path. Approving a booking still re-checks the DB under
+ * the pessimistic lock (BookingRepository.countConflictingConfirmedBookings)
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PropertyAvailabilityIndex {
+
+    /** Booking statuses that block the property calendar */
+    public static final Set<String> BLOCKING_STATUSES = Set.of("CONFIRMED", "PAID");
+
+    private final BookingRepository bookingRepository;
+
+    private final Map<Integer, PropertyStays> staysByProperty = new ConcurrentHashMap<>();
+    private volatile boolean ready = false;
+
+    /**
+     * Load all current/future CONFIRMED + PAID stays
+     * Writers are serialized with event handling so an event committed during the load is never lost
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        try {
+            List<BookingRepository.StayRow> rows = bookingRepository.findActiveStays(LocalDateTime.now());
+
+            Map<Integer, Map<Integer, long[]>> grouped = new HashMap<>();
+            for (BookingRepository.StayRow row : rows) {
+                grouped.computeIfAbsent(row.getPropertyId(), k -> new HashMap<>())
+                        .put(row.getBookingId(), new long[]{toKey(row.getCheckIn()), toKey(row.getCheckOut())});
+            }
+
+            staysByProperty.clear();
+            grouped.forEach((propertyId, stays) -> staysByProperty.put(propertyId, PropertyStays.of(stays)));
+            ready = true;
+
+            log.info("Availability index loaded: {} stays across {} properties", rows.size(), grouped.size());
+        } catch (Exception e) {
+            // Keep serving from DB (callers fall back when not ready)
+            ready = false;
+            log.error("Failed to load availability index, falling back to DB checks: {}", e.getMessage(), e);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onBookingStatusChanged(BookingStatusChangedEvent e) {
+        if (e.bookingId() == null || e.propertyId() == null) {
+            return;
+        }
+
+        PropertyStays current = staysByProperty.getOrDefault(e.propertyId(), PropertyStays.EMPTY);
+        PropertyStays updated;
+        if (e.status() != null && BLOCKING_STATUSES.contains(e.status().toUpperCase(Locale.ROOT))
+                && e.checkIn() != null && e.checkOut() != null) {
+            updated = current.with(e.bookingId(), toKey(e.checkIn()), toKey(e.checkOut()));
+        } else {
+            updated = current.without(e.bookingId());
+        }
+
+        if (updated.isEmpty()) {
+            staysByProperty.remove(e.propertyId());
+        } else {
+            staysByProperty.put(e.propertyId(), updated);
+        }
+    }
+
+    /**
+     * @return true when the index is loaded and can answer overlap queries
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Same semantics as countConflictingConfirmedBookings > 0:
+     * existing.checkIn < checkOut AND existing.checkOut > checkIn
+     */
+    public boolean hasConflict(Integer propertyId, LocalDateTime checkIn, LocalDateTime checkOut) {
+        PropertyStays stays = staysByProperty.get(propertyId);
+        return stays != null && stays.overlaps(toKey(checkIn), toKey(checkOut));
+    }
+
+    private static long toKey(LocalDateTime time) {
+        // Only used for ordering/comparison, so a fixed offset is fine
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Immutable, copy-on-write snapshot of one property's stays
+     */
+    private static final class PropertyStays {
+        static final PropertyStays EMPTY = new PropertyStays(Map.of(), new long[0], new long[0]);
+
+        private final Map<Integer, long[]> byBooking; // bookingId -> {checkIn, checkOut}
+        private final long[] starts;                  // sorted ascending
+        private final long[] maxEnds;                 // maxEnds[i] = max(checkOut of stays 0..i)
+
+        private PropertyStays(Map<Integer, long[]> byBooking, long[] starts, long[] maxEnds) {
+            this.byBooking = byBooking;
+            this.starts = starts;
+            this.maxEnds = maxEnds;
+        }
+
+        static PropertyStays of(Map<Integer, long[]> byBooking) {
+            long[][] ranges = byBooking.values().toArray(new long[0][]);
+            Arrays.sort(ranges, (a, b) -> Long.compare(a[0], b[0]));
+
+            long[] starts = new long[ranges.length];
+            long[] maxEnds = new long[ranges.length];
+            long max = Long.MIN_VALUE;
+            for (int i = 0; i < ranges.length; i++) {
+                starts[i] = ranges[i][0];
+                max = Math.max(max, ranges[i][1]);
+                maxEnds[i] = max;
+            }
+            return new PropertyStays(Map.copyOf(byBooking), starts, maxEnds);
+        }
+
+        PropertyStays with(Integer bookingId, long checkIn, long checkOut) {
+            Map<Integer, long[]> copy = new HashMap<>(byBooking);
+            copy.put(bookingId, new long[]{checkIn, checkOut});
+            return of(copy);
+        }
+
+        PropertyStays without(Integer bookingId) {
+            if (!byBooking.containsKey(bookingId)) {
+                return this;
+            }
+            Map<Integer, long[]> copy = new HashMap<>(byBooking);
+            copy.remove(bookingId);
+            return of(copy);
+        }
+
+        boolean isEmpty() {
+            return starts.length == 0;
+        }
+
+        boolean overlaps(long checkIn, long checkOut) {
+            // Last stay whose start < checkOut; every candidate is in [0..idx]
+            int idx = lastIndexBefore(checkOut);
+            return idx >= 0 && maxEnds[idx] > checkIn;
+        }
+
+        private int lastIndexBefore(long value) {
+            int lo = 0, hi = starts.length - 1, result = -1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                if (starts[mid] < value) {
+                    result = mid;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.Cybersoft.Final_Capstone.service.payment;
+
+import com.Cybersoft.Final_Capstone.Entity.PaymentWebhookEvent;
+import com.Cybersoft.Final_Capstone.events.PaymentWebhookReceivedEvent;
+import com.Cybersoft.Final_Capstone.payload.request.PayOSWebhookRequest;
+import com.Cybersoft.Final_Capstone.repository.PaymentWebhookEventRepository;
+import com.Cybersoft.Final_Capstone.scheduler.JobLeaseManager;
+import com.Cybersoft.Final_Capstone.service.PaymentWebhookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Async processing of stored PayOS webhooks (payment_webhook_event)
+ * - Fast path: PaymentWebhookReceivedEvent -> bounded worker pool
+ * - Each event is claimed with a conditional UPDATE (RECEIVED -> PROCESSING) before processing
+ * - Retry sweep (1 instance via JobLeaseManager): failed attempts, rejected submissions, crashed workers
+ */
+@Component
+@Slf4j
+public class PaymentWebhookWorker {
+
+    private static final int SWEEP_BATCH = 200;
+
+    private final PaymentWebhookEventRepository webhookEventRepository;
+    private final PaymentWebhookService paymentWebhookService;
+    private final JobLeaseManager jobLeaseManager;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor workers;
+
+    @Value("${payment.webhook.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${payment.webhook.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @Value("${payment.webhook.stale-claim-seconds:300}")
+    private long staleClaimSeconds;
+
+    public PaymentWebhookWorker(PaymentWebhookEventRepository webhookEventRepository,
+                                PaymentWebhookService paymentWebhookService,
+                                JobLeaseManager jobLeaseManager,
+                                ObjectMapper objectMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${payment.webhook.workers:4}") int workerCount,
+                                @Value("${payment.webhook.queue-capacity:10000}") int queueCapacity) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentWebhookService = paymentWebhookService;
+        this.jobLeaseManager = jobLeaseManager;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread thread = new Thread(r, "payment-webhook-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onWebhookReceived(PaymentWebhookReceivedEvent e) {
+        submit(e.webhookEventId());
+    }
+
+    /**
+     * Retry sweep: runs on one instance per tick
+     */
+    @Scheduled(fixedDelayString = "${payment.webhook.sweep-delay-ms:30000}")
+    public void retryPending() {
+        jobLeaseManager.runExclusively("payment-webhook-retry", () -> {
+            int released = webhookEventRepository.releaseStaleClaims(staleClaimSeconds);
+            if (released > 0) {
+                log.warn("⚠️ Released {} stale webhook claims", released);
+            }
+
+            List<Long> ids = webhookEventRepository.findRetryableIds(retryAfterSeconds, SWEEP_BATCH);
+            if (!ids.isEmpty()) {
+                log.info("🔁 Retrying {} pending PayOS webhooks", ids.size());
+                ids.forEach(this::submit);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    private void submit(Long eventId) {
+        try {
+            workers.execute(() -> process(eventId));
+        } catch (RejectedExecutionException ex) {
+            // Stays RECEIVED in DB, the retry sweep picks it up
+            meterRegistry.counter("payment.webhook.rejected").increment();
+            log.warn("⚠️ Webhook worker queue full, event {} deferred to retry sweep", eventId);
+        }
+    }
+
+    private void process(Long eventId) {
+        if (webhookEventRepository.claim(eventId) == 0) {
+            return; // Already processed or claimed by another worker/instance
+        }
+
+        try {
+            PaymentWebhookEvent event = webhookEventRepository.findById(eventId)
+                    .orElseThrow(() -> new IllegalStateException("Webhook event not found: " + eventId));
+            PayOSWebhookRequest request = objectMapper.readValue(event.getPayload(), PayOSWebhookRequest.class);
+
+            paymentWebhookService.processWebhook(request);
+
+            webhookEventRepository.markProcessed(eventId);
+            meterRegistry.counter("payment.webhook.processed").increment();
+        } catch (Exception ex) {
+            String error = ex.getMessage() == null ? ex.getClass().getSimpleName() : ex.getMessage();
+            webhookEventRepository.markFailed(eventId, error.length() > 500 ? error.substring(0, 500) : error, maxAttempts);
+            meterRegistry.counter("payment.webhook.failed").increment();
+            log.error("❌ Failed to process webhook event {}: {}", eventId, error, ex);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.Cybersoft.Final_Capstone.service.stats;
+
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
+import com.Cybersoft.Final_Capstone.events.BookingsAutoRejectedEvent;
+import com.Cybersoft.Final_Capstone.events.PropertyCreatedEvent;
+import com.Cybersoft.Final_Capstone.events.PropertyRatingChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Keeps HostStats in sync (AFTER_COMMIT)
+ * Lỗi ở đây chỉ log, không được làm fail request đã commit
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HostStatsEventListener {
+
+    private final HostStatsService hostStatsService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingStatusChanged(BookingStatusChangedEvent e) {
+        try {
+            hostStatsService.applyBookingTransition(e);
+        } catch (Exception ex) {
+            log.error("Failed to update host stats for booking {}: {}", e.bookingId(), ex.getMessage(), ex);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onBookingsAutoRejected(BookingsAutoRejectedEvent e) {
+        try {
+            hostStatsService.applyAutoRejected(e.propertyId(), e.count());
+        } catch (Exception ex) {
+            log.error("Failed to update host stats for property {}: {}", e.propertyId(), ex.getMessage(), ex);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPropertyCreated(PropertyCreatedEvent e) {
+        try {
+            hostStatsService.applyPropertyCreated(e.id());
+        } catch (Exception ex) {
+            log.error("Failed to update host stats for property {}: {}", e.id(), ex.getMessage(), ex);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPropertyRatingChanged(PropertyRatingChangedEvent e) {
+        try {
+            hostStatsService.refreshRatings(e.propertyId());
+        } catch (Exception ex) {
+            log.error("Failed to refresh host ratings for property {}: {}", e.propertyId(), ex.getMessage(), ex);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.Cybersoft.Final_Capstone.service.stats;
+
+import com.Cybersoft.Final_Capstone.Entity.HostStats;
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
+import com.Cybersoft.Final_Capstone.repository.BookingRepository;
+import com.Cybersoft.Final_Capstone.repository.HostStatsRepository;
+import com.Cybersoft.Final_Capstone.repository.PropertyRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Maintains HostStats rows
+ * - Transitions: UPDATE atomic với delta (không load booking nào)
+ * - Row chưa có: rebuild bằng 2 query aggregate rồi bỏ qua delta
+ *   (listener chạy AFTER_COMMIT nên aggregate đã bao gồm thay đổi hiện tại)
+ * - Rebuild ghi bằng INSERT IGNORE: 2 event cùng host đến lúc row chưa có không đụng duplicate PK,
+ *   bên thua thấy row đã có và áp delta như bình thường
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HostStatsService {
+
+    private final HostStatsRepository hostStatsRepository;
+    private final BookingRepository bookingRepository;
+    private final PropertyRepository propertyRepository;
+
+    @Transactional
+    public HostStats getOrRebuild(Integer hostId) {
+        return hostStatsRepository.findById(hostId).orElseGet(() -> rebuild(hostId));
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void applyBookingTransition(BookingStatusChangedEvent e) {
+        Integer hostId = findHostId(e.propertyId());
+        if (hostId == null || rebuildIfMissing(hostId)) {
+            return;
+        }
+
+        BookingDelta delta = new BookingDelta();
+        if (e.previousStatus() == null) {
+            delta.total++;
+        }
+        if ("DELETED".equals(e.status())) {
+            delta.total--;
+        }
+        delta.add(e.previousStatus(), -1);
+        delta.add(e.status(), 1);
+
+        BigDecimal price = e.totalPrice() != null ? e.totalPrice() : BigDecimal.ZERO;
+        if ("COMPLETED".equals(e.previousStatus())) {
+            delta.revenue = delta.revenue.subtract(price);
+        }
+        if ("COMPLETED".equals(e.status())) {
+            delta.revenue = delta.revenue.add(price);
+        }
+
+        if (!delta.isEmpty()) {
+            hostStatsRepository.applyBookingDelta(hostId, delta.total, delta.pending, delta.confirmed,
+                    delta.completed, delta.cancelled, delta.revenue);
+        }
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void applyAutoRejected(Integer propertyId, int count) {
+        Integer hostId = findHostId(propertyId);
+        if (hostId == null || rebuildIfMissing(hostId)) {
+            return;
+        }
+        // autoRejectConflicts only touches PENDING rows
+        hostStatsRepository.applyBookingDelta(hostId, 0, -count, 0, 0, count, BigDecimal.ZERO);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void applyPropertyCreated(Integer propertyId) {
+        Integer hostId = findHostId(propertyId);
+        if (hostId == null || rebuildIfMissing(hostId)) {
+            return;
+        }
+        hostStatsRepository.incProperties(hostId);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void refreshRatings(Integer propertyId) {
+        Integer hostId = findHostId(propertyId);
+        if (hostId == null || rebuildIfMissing(hostId)) {
+            return;
+        }
+        PropertyRepository.HostRatingRow ratings = propertyRepository.aggregateRatingsForHost(hostId);
+        hostStatsRepository.updateRatings(hostId, ratings.getRatingSum(), ratings.getRatedProperties().intValue());
+    }
+
+    /**
+     * Compute one host's row from DB (2 aggregate queries) and insert it if the host has none yet
+     */
+    @Transactional
+    public HostStats rebuild(Integer hostId) {
+        HostStats stats = aggregate(hostId);
+        if (insertIfAbsent(stats)) {
+            return stats;
+        }
+        // A concurrent rebuild created the row first
+        return hostStatsRepository.findById(hostId).orElse(stats);
+    }
+
+    /**
+     * @return true when this call created the row (its aggregate already includes the current change)
+     */
+    private boolean rebuildIfMissing(Integer hostId) {
+        if (hostStatsRepository.existsById(hostId)) {
+            return false;
+        }
+        // false = lost the insert to a concurrent listener: the row exists now, caller applies its delta
+        return insertIfAbsent(aggregate(hostId));
+    }
+
+    private boolean insertIfAbsent(HostStats stats) {
+        boolean inserted = hostStatsRepository.insertIgnore(stats.getHostId(), stats.getTotalProperties(),
+                stats.getTotalBookings(), stats.getPendingBookings(), stats.getConfirmedBookings(),
+                stats.getCompletedBookings(), stats.getCancelledBookings(), stats.getTotalRevenue(),
+                stats.getRatingSum(), stats.getRatedProperties()) == 1;
+        if (inserted) {
+            log.info("📊 Rebuilt host stats for host {}: {} properties, {} bookings",
+                    stats.getHostId(), stats.getTotalProperties(), stats.getTotalBookings());
+        } else {
+            log.debug("Host stats for host {} created concurrently, keeping existing row", stats.getHostId());
+        }
+        return inserted;
+    }
+
+    private HostStats aggregate(Integer hostId) {
+        HostStats stats = new HostStats(hostId);
+
+        PropertyRepository.HostRatingRow ratings = propertyRepository.aggregateRatingsForHost(hostId);
+        stats.setTotalProperties(ratings.getProperties().intValue());
+        stats.setRatingSum(ratings.getRatingSum());
+        stats.setRatedProperties(ratings.getRatedProperties().intValue());
+
+        BookingDelta totals = new BookingDelta();
+        for (BookingRepository.StatusAggregateRow row : bookingRepository.aggregateByStatusForHost(hostId)) {
+            int count = row.getBookings().intValue();
+            totals.total += count;
+            totals.add(row.getStatus(), count);
+            if ("COMPLETED".equals(row.getStatus())) {
+                totals.revenue = totals.revenue.add(row.getRevenue());
+            }
+        }
+        stats.setTotalBookings(totals.total);
+        stats.setPendingBookings(totals.pending);
+        stats.setConfirmedBookings(totals.confirmed);
+        stats.setCompletedBookings(totals.completed);
+        stats.setCancelledBookings(totals.cancelled);
+        stats.setTotalRevenue(totals.revenue);
+        return stats;
+    }
+
+    private Integer findHostId(Integer propertyId) {
+        return propertyId == null ? null : propertyRepository.findHostIdById(propertyId).orElse(null);
+    }
+
+    /**
+     * Counter changes grouped the same way as HostStatisticsDTO
+     */
+    private static final class BookingDelta {
+        int total;
+        int pending;
+        int confirmed;
+        int completed;
+        int cancelled;
+        BigDecimal revenue = BigDecimal.ZERO;
+
+        void add(String status, int amount) {
+            if (status == null) {
+                return;
+            }
+            switch (status) {
+                case "PENDING" -> pending += amount;
+                case "CONFIRMED" -> confirmed += amount;
+                case "COMPLETED" -> completed += amount;
+                case "CANCELLED", "REJECTED" -> cancelled += amount;
+                default -> {
+                    // PAID, USED, DELETED... are only part of totalBookings
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return total == 0 && pending == 0 && confirmed == 0 && completed == 0 && cancelled == 0
+                    && revenue.signum() == 0;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.Cybersoft.Final_Capstone.service.stats;
+
+import com.Cybersoft.Final_Capstone.Entity.TokenStats;
+import com.Cybersoft.Final_Capstone.events.TokenCountsChangedEvent;
+import com.Cybersoft.Final_Capstone.repository.TokenStatsRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps token_stats in step with the tokens table without COUNT scans
+ * - Mỗi refresh/login/logout chỉ cộng vào LongAdder trong RAM (không UPDATE hot row mỗi request)
+ * - Flush định kỳ: 1 UPDATE cộng dồn / instance / lần flush
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenStatsRecorder {
+
+    private final TokenStatsRepository tokenStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final LongAdder pendingTotal = new LongAdder();
+    private final LongAdder pendingRevoked = new LongAdder();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onTokenCountsChanged(TokenCountsChangedEvent e) {
+        record(e.totalDelta(), e.revokedDelta());
+    }
+
+    /**
+     * For callers that already committed (chunked purges)
+     */
+    public void record(long totalDelta, long revokedDelta) {
+        pendingTotal.add(totalDelta);
+        pendingRevoked.add(revokedDelta);
+    }
+
+    @Scheduled(fixedDelayString = "${jobs.token-stats.flush-delay-ms:10000}")
+    @PreDestroy
+    public void flush() {
+        long total = pendingTotal.sumThenReset();
+        long revoked = pendingRevoked.sumThenReset();
+        if (total == 0 && revoked == 0) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (tokenStatsRepository.applyDelta(total, revoked) == 0) {
+                    // Row missing (migration not run): create it, the daily reconcile fills real numbers
+                    tokenStatsRepository.save(new TokenStats());
+                    tokenStatsRepository.applyDelta(total, revoked);
+                }
+            });
+        } catch (Exception e) {
+            // Keep the delta for the next flush
+            record(total, revoked);
+            log.warn("Token stats flush failed: {}", e.getMessage());
+        }
+    }
+}
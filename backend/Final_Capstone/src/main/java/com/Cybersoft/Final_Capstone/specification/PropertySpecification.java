@@ -1,13 +1,18 @@
 package com.Cybersoft.Final_Capstone.specification;
 
+import com.Cybersoft.Final_Capstone.Entity.Booking;
 import com.Cybersoft.Final_Capstone.Entity.Property;
 import com.Cybersoft.Final_Capstone.Enum.PropertyType;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
-import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,7 +32,9 @@ public class PropertySpecification {
             Integer maxPets,
             List<Integer> amenities,
             List<Integer> facilities,
-            String name // Add name search parameter
+            String name, // Add name search parameter
+            LocalDateTime checkIn,
+            LocalDateTime checkOut
     ) {
         return (root, query, criteriaBuilder) -> {
             List<Predicate> predicates = new ArrayList<>();
@@ -101,16 +108,15 @@ public class PropertySpecification {
                         root.get("maxPets"), maxPets));
             }
 
-            // Filter by amenities (property must have all specified amenities)
-            if (amenities != null && !amenities.isEmpty()) {
-                Join<Object, Object> amenitiesJoin = root.join("amenities", JoinType.LEFT);
-                predicates.add(amenitiesJoin.get("id").in(amenities));
-            }
-
-            // Filter by facilities (property must have all specified facilities)
-            if (facilities != null && !facilities.isEmpty()) {
-                Join<Object, Object> facilitiesJoin = root.join("facilities", JoinType.LEFT);
-                predicates.add(facilitiesJoin.get("id").in(facilities));
+            // Filter by amenities/facilities (property must have ALL specified ids)
+            // One grouped subquery per feature type: the SQL stays the same size whatever the number of matches
+            if (query != null) {
+                if (amenities != null && !amenities.isEmpty()) {
+                    predicates.add(hasAll(root, query, criteriaBuilder, "amenities", amenities));
+                }
+                if (facilities != null && !facilities.isEmpty()) {
+                    predicates.add(hasAll(root, query, criteriaBuilder, "facilities", facilities));
+                }
             }
 
             // Filter by property name (partial match, case-insensitive)
@@ -121,12 +127,46 @@ public class PropertySpecification {
                 ));
             }
 
-            // Make query distinct to avoid duplicates from joins
-            if (query != null) {
-                query.distinct(true);
+            // Filter by availability window (anti-join, same overlap rule as BookingRepository)
+            // NOT EXISTS (CONFIRMED/PAID booking with b.checkIn < :checkOut AND b.checkOut > :checkIn)
+            if (checkIn != null && checkOut != null && query != null) {
+                Subquery<Integer> conflicts = query.subquery(Integer.class);
+                Root<Booking> booking = conflicts.from(Booking.class);
+                conflicts.select(booking.<Integer>get("id"))
+                        .where(
+                                criteriaBuilder.equal(booking.get("property"), root),
+                                booking.get("status").get("name").in("CONFIRMED", "PAID"),
+                                criteriaBuilder.lessThan(booking.get("checkIn"), checkOut),
+                                criteriaBuilder.greaterThan(booking.get("checkOut"), checkIn)
+                        );
+                predicates.add(criteriaBuilder.not(criteriaBuilder.exists(conflicts)));
             }
 
+            // No collection joins anymore => no DISTINCT needed (keeps COUNT cheap for pagination)
             return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * root.id IN (SELECT p.id FROM Property p JOIN p.<collection> f WHERE f.id IN :ids
+     *             GROUP BY p.id HAVING COUNT(DISTINCT f.id) = :n)
+     */
+    private static Predicate hasAll(Root<Property> root,
+                                    CriteriaQuery<?> query,
+                                    CriteriaBuilder criteriaBuilder,
+                                    String collection,
+                                    List<Integer> ids) {
+        List<Integer> distinctIds = ids.stream().distinct().toList();
+
+        Subquery<Integer> matching = query.subquery(Integer.class);
+        Root<Property> property = matching.from(Property.class);
+        Join<Property, Object> feature = property.join(collection);
+        matching.select(property.<Integer>get("id"))
+                .where(feature.get("id").in(distinctIds))
+                .groupBy(property.get("id"))
+                .having(criteriaBuilder.equal(
+                        criteriaBuilder.countDistinct(feature.get("id")), (long) distinctIds.size()));
+
+        return root.get("id").in(matching);
+    }
 }
@@ -1,48 +1,268 @@
 package com.Cybersoft.Final_Capstone.util;
 
+import com.Cybersoft.Final_Capstone.config.PayOSConfig;
+import com.Cybersoft.Final_Capstone.payload.request.PayOSWebhookRequest;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
 import java.util.Map;
 import java.util.TreeMap;
 
+/**
+ * PayOS HMAC-SHA256 signatures, shared by payment creation (PayOSServiceImp) and webhook verification
+ * - 1 Mac (đã init với checksum key) + 1 byte buffer tái sử dụng cho mỗi thread
+ * - Canonical string (field theo thứ tự alphabet) được ghi thẳng vào buffer, không TreeMap/String.format
+ * - Verify so sánh hex nhận được với HMAC raw bytes, constant-time, không cấp phát
+ */
 @Component
 public class PayOSSignatureUtils {
 
-    public String createSignature(Map<String, Object> data, String checksumKey) {
-        try {
-            TreeMap<String, Object> sortedData = new TreeMap<>(data);
-            StringBuilder dataStr = new StringBuilder();
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final int HMAC_LENGTH = 32;
 
-            sortedData.forEach((key, value) -> {
-                if (dataStr.length() > 0) {
-                    dataStr.append("&");
-                }
-                dataStr.append(key).append("=").append(value);
-            });
+    // Webhook data fields in canonical (alphabetical) order
+    private static final byte[] ACCOUNT_NUMBER = ascii("accountNumber=");
+    private static final byte[] AMOUNT = ascii("&amount=");
+    private static final byte[] CODE = ascii("&code=");
+    private static final byte[] COUNTER_ACCOUNT_BANK_ID = ascii("&counterAccountBankId=");
+    private static final byte[] COUNTER_ACCOUNT_BANK_NAME = ascii("&counterAccountBankName=");
+    private static final byte[] COUNTER_ACCOUNT_NAME = ascii("&counterAccountName=");
+    private static final byte[] COUNTER_ACCOUNT_NUMBER = ascii("&counterAccountNumber=");
+    private static final byte[] CURRENCY = ascii("&currency=");
+    private static final byte[] DESC = ascii("&desc=");
+    private static final byte[] DESCRIPTION = ascii("&description=");
+    private static final byte[] ORDER_CODE = ascii("&orderCode=");
+    private static final byte[] PAYMENT_LINK_ID = ascii("&paymentLinkId=");
+    private static final byte[] REFERENCE = ascii("&reference=");
+    private static final byte[] TRANSACTION_DATE_TIME = ascii("&transactionDateTime=");
+    private static final byte[] VIRTUAL_ACCOUNT_NAME = ascii("&virtualAccountName=");
+    private static final byte[] VIRTUAL_ACCOUNT_NUMBER = ascii("&virtualAccountNumber=");
+
+    // Payment request fields (amount, cancelUrl, description, orderCode, returnUrl)
+    private static final byte[] REQ_AMOUNT = ascii("amount=");
+    private static final byte[] REQ_CANCEL_URL = ascii("&cancelUrl=");
+    private static final byte[] REQ_DESCRIPTION = ascii("&description=");
+    private static final byte[] REQ_ORDER_CODE = ascii("&orderCode=");
+    private static final byte[] REQ_RETURN_URL = ascii("&returnUrl=");
 
-            Mac sha256Hmac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(checksumKey.getBytes(), "HmacSHA256");
-            sha256Hmac.init(secretKey);
+    private final byte[] checksumKey;
+    private final ThreadLocal<Signer> signers = ThreadLocal.withInitial(this::newSigner);
 
-            byte[] hash = sha256Hmac.doFinal(dataStr.toString().getBytes());
-            StringBuilder hexString = new StringBuilder();
+    public PayOSSignatureUtils(PayOSConfig payOSConfig) {
+        String key = payOSConfig.getChecksumKey();
+        this.checksumKey = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Signature for POST /v2/payment-requests
+     * PayOS yêu cầu KHÔNG encode các giá trị, chỉ sắp xếp theo alphabet và nối chuỗi
+     */
+    public String signPaymentRequest(long amount, String cancelUrl, String description, long orderCode, String returnUrl) {
+        Signer signer = signers.get();
+        signer.reset();
+        signer.write(REQ_AMOUNT).write(amount)
+                .write(REQ_CANCEL_URL).write(cancelUrl)
+                .write(REQ_DESCRIPTION).write(description)
+                .write(REQ_ORDER_CODE).write(orderCode)
+                .write(REQ_RETURN_URL).write(returnUrl);
+        return HexFormat.of().formatHex(signer.sign());
+    }
 
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) hexString.append('0');
-                hexString.append(hex);
+    /**
+     * Verify webhook signature (hex, case-insensitive) against its data fields
+     * null / "null" / "undefined" values are signed as empty strings (PayOS rule)
+     */
+    public boolean verifyWebhook(PayOSWebhookRequest.PayOSWebhookData data, String signature) {
+        if (data == null || signature == null || signature.length() != HMAC_LENGTH * 2) {
+            return false;
+        }
+        Signer signer = signers.get();
+        signer.reset();
+        signer.write(ACCOUNT_NUMBER).writeField(data.getAccountNumber())
+                .write(AMOUNT).writeField(data.getAmount())
+                .write(CODE).writeField(data.getCode())
+                .write(COUNTER_ACCOUNT_BANK_ID).writeField(data.getCounterAccountBankId())
+                .write(COUNTER_ACCOUNT_BANK_NAME).writeField(data.getCounterAccountBankName())
+                .write(COUNTER_ACCOUNT_NAME).writeField(data.getCounterAccountName())
+                .write(COUNTER_ACCOUNT_NUMBER).writeField(data.getCounterAccountNumber())
+                .write(CURRENCY).writeField(data.getCurrency())
+                .write(DESC).writeField(data.getDesc())
+                .write(DESCRIPTION).writeField(data.getDescription())
+                .write(ORDER_CODE).writeField(data.getOrderCode())
+                .write(PAYMENT_LINK_ID).writeField(data.getPaymentLinkId())
+                .write(REFERENCE).writeField(data.getReference())
+                .write(TRANSACTION_DATE_TIME).writeField(data.getTransactionDateTime())
+                .write(VIRTUAL_ACCOUNT_NAME).writeField(data.getVirtualAccountName())
+                .write(VIRTUAL_ACCOUNT_NUMBER).writeField(data.getVirtualAccountNumber());
+        return matchesHex(signer.sign(), signature);
+    }
+
+    /**
+     * Generic map-based signature (sorted keys), for ad-hoc payloads
+     */
+    public String createSignature(Map<String, Object> data, String checksumKey) {
+        StringBuilder dataStr = new StringBuilder();
+        new TreeMap<>(data).forEach((key, value) -> {
+            if (dataStr.length() > 0) {
+                dataStr.append('&');
             }
+            dataStr.append(key).append('=').append(value);
+        });
 
-            return hexString.toString();
-        } catch (Exception e) {
-            throw new RuntimeException("Error creating signature", e);
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(checksumKey.getBytes(StandardCharsets.UTF_8), HMAC_SHA256));
+            return HexFormat.of().formatHex(mac.doFinal(dataStr.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Error creating signature", e);
         }
     }
 
     public boolean verifySignature(String signature, Map<String, Object> data, String checksumKey) {
-        String calculatedSignature = createSignature(data, checksumKey);
-        return calculatedSignature.equals(signature);
+        return createSignature(data, checksumKey).equalsIgnoreCase(signature);
+    }
+
+    private Signer newSigner() {
+        if (checksumKey == null) {
+            throw new IllegalStateException("PayOS checksum key is not configured");
+        }
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(new SecretKeySpec(checksumKey, HMAC_SHA256));
+            return new Signer(mac);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize PayOS HMAC", e);
+        }
+    }
+
+    /**
+     * Constant-time compare of raw HMAC bytes with a hex string (upper or lower case)
+     */
+    private static boolean matchesHex(byte[] expected, String hex) {
+        int diff = 0;
+        for (int i = 0; i < expected.length; i++) {
+            int hi = Character.digit(hex.charAt(2 * i), 16);
+            int lo = Character.digit(hex.charAt(2 * i + 1), 16);
+            if (hi < 0 || lo < 0) {
+                return false;
+            }
+            diff |= (expected[i] & 0xff) ^ ((hi << 4) | lo);
+        }
+        return diff == 0;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Per-thread Mac + growable buffer holding the canonical string as UTF-8
+     */
+    private static final class Signer {
+        private final Mac mac;
+        private final byte[] result = new byte[HMAC_LENGTH];
+        private byte[] buffer = new byte[1024];
+        private int length;
+
+        private Signer(Mac mac) {
+            this.mac = mac;
+        }
+
+        void reset() {
+            length = 0;
+        }
+
+        byte[] sign() {
+            mac.update(buffer, 0, length);
+            try {
+                mac.doFinal(result, 0);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot compute PayOS HMAC", e);
+            }
+            return result;
+        }
+
+        Signer write(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+            return this;
+        }
+
+        Signer write(long value) {
+            if (value == Long.MIN_VALUE) {
+                return write(ascii(Long.toString(value)));
+            }
+            ensureCapacity(20);
+            if (value < 0) {
+                buffer[length++] = '-';
+                value = -value;
+            }
+            int start = length;
+            do {
+                buffer[length++] = (byte) ('0' + (value % 10));
+                value /= 10;
+            } while (value != 0);
+            // Digits were written least significant first
+            for (int i = start, j = length - 1; i < j; i++, j--) {
+                byte tmp = buffer[i];
+                buffer[i] = buffer[j];
+                buffer[j] = tmp;
+            }
+            return this;
+        }
+
+        Signer write(String value) {
+            if (value == null) {
+                return this;
+            }
+            ensureCapacity(value.length() * 3);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    buffer[length++] = (byte) c;
+                } else if (c < 0x800) {
+                    buffer[length++] = (byte) (0xC0 | (c >> 6));
+                    buffer[length++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, value.charAt(++i));
+                    buffer[length++] = (byte) (0xF0 | (cp >> 18));
+                    buffer[length++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | (cp & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[length++] = '?'; // Same as String.getBytes(UTF_8) for lone surrogates
+                } else {
+                    buffer[length++] = (byte) (0xE0 | (c >> 12));
+                    buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[length++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+            return this;
+        }
+
+        Signer writeField(String value) {
+            if (value == null || "null".equalsIgnoreCase(value) || "undefined".equalsIgnoreCase(value)) {
+                return this;
+            }
+            return write(value);
+        }
+
+        Signer writeField(Long value) {
+            return value == null ? this : write(value.longValue());
+        }
+
+        private void ensureCapacity(int extra) {
+            if (length + extra > buffer.length) {
+                byte[] grown = new byte[Math.max(buffer.length * 2, length + extra)];
+                System.arraycopy(buffer, 0, grown, 0, length);
+                buffer = grown;
+            }
+        }
     }
 }
@@ -0,0 +1,67 @@
+-- ============================================================
+-- Migration: Add Host Stats Table
+-- Description: Bảng thống kê theo host (1 row / host), được cập nhật
+--              incremental bởi HostStatsEventListener thay vì load toàn
+--              bộ booking mỗi lần mở dashboard
+-- ============================================================
+
+-- ============================================================
+-- 1. CREATE HOST_STATS TABLE
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS host_stats (
+    host_id            INT            NOT NULL PRIMARY KEY,
+    total_properties   INT            NOT NULL DEFAULT 0,
+    total_bookings     INT            NOT NULL DEFAULT 0,
+    pending_bookings   INT            NOT NULL DEFAULT 0,
+    confirmed_bookings INT            NOT NULL DEFAULT 0,
+    completed_bookings INT            NOT NULL DEFAULT 0,
+    cancelled_bookings INT            NOT NULL DEFAULT 0 COMMENT 'CANCELLED + REJECTED',
+    total_revenue      DECIMAL(15, 2) NOT NULL DEFAULT 0.00 COMMENT 'Sum total_price của COMPLETED bookings',
+    rating_sum         DECIMAL(10, 1) NOT NULL DEFAULT 0.0 COMMENT 'Sum overall_rating của property có rating > 0',
+    rated_properties   INT            NOT NULL DEFAULT 0,
+    CONSTRAINT fk_host_stats_host FOREIGN KEY (host_id) REFERENCES user_account(id)
+);
+
+-- ============================================================
+-- 2. BACKFILL FROM EXISTING DATA
+-- ============================================================
+
+-- Property count + rating aggregates
+INSERT INTO host_stats (host_id, total_properties, rating_sum, rated_properties)
+SELECT p.host_id,
+       COUNT(*),
+       COALESCE(SUM(CASE WHEN p.overall_rating > 0 THEN p.overall_rating ELSE 0 END), 0),
+       COALESCE(SUM(CASE WHEN p.overall_rating > 0 THEN 1 ELSE 0 END), 0)
+FROM property p
+GROUP BY p.host_id
+ON DUPLICATE KEY UPDATE
+    total_properties = VALUES(total_properties),
+    rating_sum       = VALUES(rating_sum),
+    rated_properties = VALUES(rated_properties);
+
+-- Booking counters + revenue
+UPDATE host_stats h
+JOIN (
+    SELECT p.host_id,
+           COUNT(*)                                                  AS total_bookings,
+           SUM(CASE WHEN s.name = 'PENDING' THEN 1 ELSE 0 END)       AS pending_bookings,
+           SUM(CASE WHEN s.name = 'CONFIRMED' THEN 1 ELSE 0 END)     AS confirmed_bookings,
+           SUM(CASE WHEN s.name = 'COMPLETED' THEN 1 ELSE 0 END)     AS completed_bookings,
+           SUM(CASE WHEN s.name IN ('CANCELLED', 'REJECTED') THEN 1 ELSE 0 END) AS cancelled_bookings,
+           COALESCE(SUM(CASE WHEN s.name = 'COMPLETED' THEN b.total_price ELSE 0 END), 0) AS total_revenue
+    FROM booking b
+    JOIN property p ON b.property_id = p.id
+    JOIN status s ON b.id_status = s.id
+    GROUP BY p.host_id
+) agg ON agg.host_id = h.host_id
+SET h.total_bookings     = agg.total_bookings,
+    h.pending_bookings   = agg.pending_bookings,
+    h.confirmed_bookings = agg.confirmed_bookings,
+    h.completed_bookings = agg.completed_bookings,
+    h.cancelled_bookings = agg.cancelled_bookings,
+    h.total_revenue      = agg.total_revenue;
+
+-- ============================================================
+-- END OF MIGRATION
+-- ============================================================
@@ -0,0 +1,16 @@
+-- ============================================================
+-- Migration: Add Job Lease Table
+-- Description: Leader election cho scheduled jobs khi chạy nhiều instance
+--              (JobLeaseManager). 1 row / job, row được tạo lazily.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS job_lease (
+    name         VARCHAR(64)  NOT NULL PRIMARY KEY,
+    owner        VARCHAR(128) NOT NULL COMMENT 'hostname:uuid của instance đang giữ lease',
+    locked_at    DATETIME(3)  NOT NULL,
+    locked_until DATETIME(3)  NOT NULL COMMENT 'Lease hết hạn nếu không được renew'
+);
+
+-- ============================================================
+-- END OF MIGRATION
+-- ============================================================
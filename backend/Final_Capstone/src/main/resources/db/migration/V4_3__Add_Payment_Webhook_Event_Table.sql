@@ -0,0 +1,25 @@
+-- ============================================================
+-- Migration: Add Payment Webhook Event Table
+-- Description: Hàng đợi ingest webhook PayOS. Webhook được lưu thô rồi ack ngay,
+--              worker xử lý async. UNIQUE (order_code, reference) loại bỏ
+--              webhook trùng khi PayOS retry.
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS payment_webhook_event (
+    id           BIGINT       NOT NULL AUTO_INCREMENT PRIMARY KEY,
+    order_code   BIGINT       NOT NULL,
+    reference    VARCHAR(100) NOT NULL DEFAULT '' COMMENT '"" khi PayOS không gửi reference',
+    payload      TEXT         NOT NULL COMMENT 'Webhook JSON đã verify signature',
+    status       VARCHAR(20)  NOT NULL DEFAULT 'RECEIVED' COMMENT 'RECEIVED, PROCESSING, PROCESSED, FAILED',
+    attempts     INT          NOT NULL DEFAULT 0,
+    last_error   VARCHAR(500) NULL,
+    received_at  DATETIME(3)  NOT NULL,
+    claimed_at   DATETIME(3)  NULL,
+    processed_at DATETIME(3)  NULL,
+    CONSTRAINT uk_webhook_order_reference UNIQUE (order_code, reference),
+    INDEX idx_webhook_status_received (status, received_at)
+);
+
+-- ============================================================
+-- END OF MIGRATION
+-- ============================================================
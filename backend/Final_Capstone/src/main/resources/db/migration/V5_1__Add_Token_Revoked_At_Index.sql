@@ -0,0 +1,22 @@
+-- ============================================================
+-- Migration: Add Token Revoked At Index
+-- Description: RevokedTokenRegistry sync mỗi vài giây đọc các token mới bị
+--              revoke (revoked = true AND revoked_at > :since); cleanup job
+--              cũng xoá theo revoked_at
+-- ============================================================
+
+SET @idx_exists := (SELECT COUNT(*) FROM information_schema.statistics
+                    WHERE table_schema = DATABASE()
+                      AND table_name = 'tokens'
+                      AND column_name = 'revoked_at'
+                      AND seq_in_index = 1);
+SET @ddl := IF(@idx_exists = 0,
+               'CREATE INDEX idx_revoked_at ON tokens(revoked_at)',
+               'SELECT ''idx_revoked_at skipped''');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ============================================================
+-- END OF MIGRATION
+-- ============================================================
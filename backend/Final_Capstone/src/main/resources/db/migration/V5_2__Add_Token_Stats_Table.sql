@@ -0,0 +1,36 @@
+-- ============================================================
+-- Migration: Add Token Stats Table
+-- Description: Counter cho bảng tokens (1 row), được cộng dồn bởi
+--              TokenStatsRecorder thay vì chạy 3 COUNT(*) mỗi giờ trong
+--              TokenCleanupScheduler.logTokenStatistics
+-- ============================================================
+
+-- ============================================================
+-- 1. CREATE TOKEN_STATS TABLE
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS token_stats (
+    id             BIGINT   NOT NULL PRIMARY KEY,
+    total_tokens   BIGINT   NOT NULL DEFAULT 0,
+    revoked_tokens BIGINT   NOT NULL DEFAULT 0,
+    reconciled_at  DATETIME NULL COMMENT 'Lần cuối đếm lại từ bảng tokens'
+);
+
+-- ============================================================
+-- 2. BACKFILL FROM EXISTING DATA
+-- ============================================================
+
+INSERT INTO token_stats (id, total_tokens, revoked_tokens, reconciled_at)
+SELECT 1,
+       COUNT(*),
+       COALESCE(SUM(CASE WHEN revoked = 1 THEN 1 ELSE 0 END), 0),
+       NOW()
+FROM tokens
+ON DUPLICATE KEY UPDATE
+    total_tokens   = VALUES(total_tokens),
+    revoked_tokens = VALUES(revoked_tokens),
+    reconciled_at  = VALUES(reconciled_at);
+
+-- ============================================================
+-- END OF MIGRATION
+-- ============================================================
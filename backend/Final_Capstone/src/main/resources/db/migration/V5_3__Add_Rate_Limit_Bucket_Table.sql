@@ -0,0 +1,17 @@
+-- ============================================================
+-- Migration: Add Rate Limit Bucket Table
+-- Description: Token bucket dùng chung cho mọi instance khi
+--              rate-limit.store=jdbc (JdbcRateLimitStore).
+--              1 row / (policy, client), row tạo lazily và bị xoá khi
+--              bucket đã đầy lại (tat < now).
+-- ============================================================
+
+CREATE TABLE IF NOT EXISTS rate_limit_bucket (
+    bucket_key VARCHAR(191) NOT NULL PRIMARY KEY COMMENT 'policy:client',
+    tat        BIGINT       NOT NULL COMMENT 'Epoch millis khi bucket đầy lại',
+    INDEX idx_rate_limit_bucket_tat (tat)
+);
+
+-- ============================================================
+-- END OF MIGRATION
+-- ============================================================
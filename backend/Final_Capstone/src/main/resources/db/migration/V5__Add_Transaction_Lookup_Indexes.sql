@@ -0,0 +1,81 @@
+-- ============================================================
+-- Migration: Add Transaction Lookup Indexes
+-- Description: Index cho các lookup chạy mỗi lần init payment / webhook /
+--              list booking:
+--              - TransactionRepository.findByOrderId
+--              - TransactionRepository.findByBookingId(AndPaymentStatus)
+--              - PromotionUsageRepository.findByBookingId
+--              - BookingRepository.findByUserId
+--              Chỉ tạo khi chưa có index nào bắt đầu bằng cột đó (DB cũ có
+--              thể đã có unique key do Hibernate tạo / FK index của InnoDB)
+-- ============================================================
+
+-- ============================================================
+-- 1. TRANSACTION(order_id) - webhook + payment status lookup
+-- ============================================================
+
+SET @idx_exists := (SELECT COUNT(*) FROM information_schema.statistics
+                    WHERE table_schema = DATABASE()
+                      AND table_name = 'transaction'
+                      AND column_name = 'order_id'
+                      AND seq_in_index = 1);
+SET @ddl := IF(@idx_exists = 0,
+               'CREATE INDEX idx_transaction_order_id ON `transaction`(order_id)',
+               'SELECT ''idx_transaction_order_id skipped''');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ============================================================
+-- 2. TRANSACTION(booking_id, payment_status) - init payment reuse check
+--    Composite nên cũng phục vụ findByBookingId (leftmost prefix)
+-- ============================================================
+
+SET @idx_exists := (SELECT COUNT(*) FROM information_schema.statistics
+                    WHERE table_schema = DATABASE()
+                      AND table_name = 'transaction'
+                      AND index_name = 'idx_transaction_booking_status');
+SET @ddl := IF(@idx_exists = 0,
+               'CREATE INDEX idx_transaction_booking_status ON `transaction`(booking_id, payment_status)',
+               'SELECT ''idx_transaction_booking_status skipped''');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ============================================================
+-- 3. PROMOTION_USAGE(booking_id) - booking list / refund
+--    V3 đã khai báo idx_promotion_usage_booking khi CREATE TABLE, nhưng
+--    bảng tạo tay trước V3 thì không có (CREATE TABLE IF NOT EXISTS)
+-- ============================================================
+
+SET @idx_exists := (SELECT COUNT(*) FROM information_schema.statistics
+                    WHERE table_schema = DATABASE()
+                      AND table_name = 'promotion_usage'
+                      AND column_name = 'booking_id'
+                      AND seq_in_index = 1);
+SET @ddl := IF(@idx_exists = 0,
+               'CREATE INDEX idx_promotion_usage_booking ON promotion_usage(booking_id)',
+               'SELECT ''idx_promotion_usage_booking skipped''');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ============================================================
+-- 4. BOOKING(user_id) - "my bookings" list
+-- ============================================================
+
+SET @idx_exists := (SELECT COUNT(*) FROM information_schema.statistics
+                    WHERE table_schema = DATABASE()
+                      AND table_name = 'booking'
+                      AND column_name = 'user_id'
+                      AND seq_in_index = 1);
+SET @ddl := IF(@idx_exists = 0,
+               'CREATE INDEX idx_booking_user ON booking(user_id)',
+               'SELECT ''idx_booking_user skipped''');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- ============================================================
+-- END OF MIGRATION
+-- ============================================================
@@ -0,0 +1,133 @@
+package com.Cybersoft.Final_Capstone;
+
+import com.Cybersoft.Final_Capstone.Entity.Booking;
+import com.Cybersoft.Final_Capstone.Entity.City;
+import com.Cybersoft.Final_Capstone.Entity.Image;
+import com.Cybersoft.Final_Capstone.Entity.Location;
+import com.Cybersoft.Final_Capstone.Entity.Property;
+import com.Cybersoft.Final_Capstone.Entity.Role;
+import com.Cybersoft.Final_Capstone.Entity.Status;
+import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Base for the N+1 checks: each test seeds its own rows inside the test transaction (rolled back afterwards),
+ * then compares the statements Hibernate prepares for a small and a large page/chunk.
+ * Only the reference rows of the schema (status, role) are read from the database, like the context test.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+public abstract class StatementCountTestSupport {
+
+	// Unique per test instance: seeded names/emails never collide with existing rows
+	protected final String tag = "qc-" + UUID.randomUUID().toString().substring(0, 8);
+
+	@Autowired
+	protected EntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Location location;
+	private int sequence;
+
+	/**
+	 * Statements prepared by action, starting from an empty persistence context (seeded rows flushed first)
+	 */
+	protected long statementsFor(Runnable action) {
+		entityManager.flush();
+		entityManager.clear();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		action.run();
+
+		return statistics.getPrepareStatementCount();
+	}
+
+	protected UserAccount persistUser(String roleName) {
+		int n = ++sequence;
+		UserAccount user = new UserAccount();
+		user.setFullName(tag + " user " + n);
+		user.setUsername(tag + "-user-" + n);
+		user.setEmail(tag + "-user-" + n + "@example.com");
+		user.setRole(entityManager.createQuery("SELECT r FROM Role r WHERE r.name = :name", Role.class)
+				.setParameter("name", roleName)
+				.getSingleResult());
+		user.setStatus(status("ACTIVE"));
+		user.setCreateDate(LocalDate.now());
+		entityManager.persist(user);
+		return user;
+	}
+
+	/**
+	 * AVAILABLE property named "<tag> property <n>" with one image (thumbnail)
+	 */
+	protected Property persistProperty(UserAccount host) {
+		int n = ++sequence;
+		Property property = new Property();
+		property.setHost(host);
+		property.setPropertyName(tag + " property " + n);
+		property.setFullAddress(tag + " address " + n);
+		property.setPricePerNight(BigDecimal.valueOf(500_000L + n));
+		property.setMaxAdults(2);
+		property.setStatus(status("AVAILABLE"));
+		property.setLocation(location());
+		entityManager.persist(property);
+
+		Image image = new Image();
+		image.setProperty(property);
+		image.setImagePath(tag + "/property-" + n + ".jpg");
+		entityManager.persist(image);
+		return property;
+	}
+
+	protected Booking persistBooking(UserAccount guest, Property property, String statusName, LocalDateTime confirmedAt) {
+		LocalDateTime checkIn = LocalDateTime.now().plusDays(30 + (++sequence));
+		Booking booking = new Booking();
+		booking.setUser(guest);
+		booking.setProperty(property);
+		booking.setCheckIn(checkIn);
+		booking.setCheckOut(checkIn.plusDays(1));
+		booking.setTotalPrice(property.getPricePerNight());
+		booking.setNumAdults(1);
+		booking.setNumChildren(0);
+		booking.setNum_infant(0);
+		booking.setNumPet(0);
+		booking.setStatus(status(statusName));
+		booking.setConfirmedAt(confirmedAt);
+		entityManager.persist(booking);
+		return booking;
+	}
+
+	protected Status status(String name) {
+		return entityManager.createQuery("SELECT s FROM Status s WHERE s.name = :name", Status.class)
+				.setParameter("name", name)
+				.getSingleResult();
+	}
+
+	private Location location() {
+		if (location == null) {
+			City city = new City();
+			city.setCityName(tag + " city");
+			entityManager.persist(city);
+
+			location = new Location();
+			location.setLocationName(tag + " location");
+			location.setCity(city);
+			entityManager.persist(location);
+		}
+		return location;
+	}
+}
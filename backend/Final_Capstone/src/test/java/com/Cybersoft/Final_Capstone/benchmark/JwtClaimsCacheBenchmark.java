@@ -0,0 +1,90 @@
+package com.Cybersoft.Final_Capstone.benchmark;
+
+import com.Cybersoft.Final_Capstone.components.JwtTokenUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JwtTokenUtil.parseClaims with the verified-claims cache (jwt.claims-cache.max-size = 10000), 4 threads
+ * - activeTokens below the cache size: steady-state hits, lock-free
+ * - activeTokens above it: every request misses and evicts through the clock hand
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.Cybersoft.Final_Capstone.benchmark.JwtClaimsCacheBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class JwtClaimsCacheBenchmark {
+
+	private static final String SECRET = "dGhpc2lzYXZlcnlzZWN1cmVzZWNyZXRrZXlmb3Jqd3R0b2tlbmVuY29kaW5nMTIzNDU2Nzg5MA==";
+	private static final int CACHE_SIZE = 10_000;
+
+	@Param({"1000", "50000"})
+	private int activeTokens;
+
+	private JwtTokenUtil jwtTokenUtil;
+	private String[] tokens;
+
+	@State(Scope.Thread)
+	public static class Cursor {
+		private int next;
+	}
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jwtTokenUtil = new JwtTokenUtil(null);
+		jwtTokenUtil.setSecret(SECRET);
+		jwtTokenUtil.setIssuer("Final_Capstone_Backend");
+		jwtTokenUtil.setAccessExpirationSeconds(900);
+		jwtTokenUtil.setClaimsCacheMaxSize(CACHE_SIZE);
+
+		SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET));
+		Date expiration = new Date(System.currentTimeMillis() + TimeUnit.HOURS.toMillis(1));
+		tokens = new String[activeTokens];
+		for (int i = 0; i < activeTokens; i++) {
+			tokens[i] = Jwts.builder()
+					.subject(String.valueOf(i))
+					.issuer("Final_Capstone_Backend")
+					.expiration(expiration)
+					.signWith(key, Jwts.SIG.HS256)
+					.compact();
+		}
+	}
+
+	@Benchmark
+	public Claims parseClaims(Cursor cursor) {
+		String token = tokens[cursor.next];
+		cursor.next = (cursor.next + 1) % tokens.length;
+		return jwtTokenUtil.parseClaims(token);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(JwtClaimsCacheBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,113 @@
+package com.Cybersoft.Final_Capstone.benchmark;
+
+import com.Cybersoft.Final_Capstone.constants.PublicEndpoints;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PublicEndpoints.isPublicEndpoint (precompiled path tries) vs the previous per-request matcher
+ * (toLowerCase + set scans + String.matches regex), over a mix of public and protected requests
+ *
+ * Run: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.Cybersoft.Final_Capstone.benchmark.PublicEndpointsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublicEndpointsBenchmark {
+
+	// {method, path}: roughly what JwtTokenFilter sees when browsing, booking and paying
+	private static final String[][] REQUESTS = {
+			{"GET", "/property/123"},
+			{"GET", "/property/top4/type/2"},
+			{"POST", "/property/search"},
+			{"GET", "/locations/5"},
+			{"POST", "/auth/login"},
+			{"POST", "/auth/refresh"},
+			{"GET", "/bookings/user/18"},
+			{"POST", "/bookings/create"},
+			{"PUT", "/host/property/44"},
+			{"GET", "/admin/users"},
+			{"POST", "/transactions/init"},
+			{"GET", "/users/profile"},
+	};
+
+	@Benchmark
+	public void precompiledTries(Blackhole blackhole) {
+		for (String[] request : REQUESTS) {
+			blackhole.consume(PublicEndpoints.isPublicEndpoint(request[0], request[1]));
+		}
+	}
+
+	@Benchmark
+	public void previousMatcher(Blackhole blackhole) {
+		for (String[] request : REQUESTS) {
+			blackhole.consume(previousIsPublicEndpoint(request[0], request[1]));
+		}
+	}
+
+	/**
+	 * Baseline: isPublicEndpoint before the tries
+	 */
+	private static boolean previousIsPublicEndpoint(String method, String path) {
+		method = method.toUpperCase();
+		path = path.toLowerCase();
+
+		if ("POST".equals(method) && PublicEndpoints.AUTH_POST_ENDPOINTS.contains(path)) {
+			return true;
+		}
+		if ("GET".equals(method) && PublicEndpoints.AUTH_GET_ENDPOINTS.contains(path)) {
+			return true;
+		}
+		for (String endpoint : PublicEndpoints.OAUTH_ENDPOINTS) {
+			if (path.startsWith(endpoint)) {
+				return true;
+			}
+		}
+		if ("GET".equals(method)) {
+			for (String endpoint : PublicEndpoints.PUBLIC_PROPERTY_ENDPOINTS) {
+				if (path.equals(endpoint) || (endpoint.endsWith("/") && path.startsWith(endpoint))) {
+					return true;
+				}
+			}
+			if (path.matches("/property/\\d+")) {
+				return true;
+			}
+		}
+		if ("POST".equals(method) && path.equals("/property/search")) {
+			return true;
+		}
+		if ("GET".equals(method)) {
+			for (String prefix : PublicEndpoints.PUBLIC_CONTENT_PREFIXES) {
+				if (path.startsWith(prefix)) {
+					return true;
+				}
+			}
+			for (String endpoint : PublicEndpoints.SYSTEM_ENDPOINTS) {
+				if (path.startsWith(endpoint)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder().include(PublicEndpointsBenchmark.class.getSimpleName()).build()).run();
+	}
+}
@@ -0,0 +1,52 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bloom filter behind RevokedTokenRegistry
+ */
+class BloomFilterTest {
+
+	private static final int INSERTED = 20_000;
+	private static final double FPP = 0.01;
+
+	@Test
+	void revokedJtisAreNeverMissed() {
+		BloomFilter filter = BloomFilter.create(INSERTED, FPP);
+		List<String> jtis = new ArrayList<>();
+		for (int i = 0; i < INSERTED; i++) {
+			String jti = UUID.randomUUID().toString();
+			jtis.add(jti);
+			filter.put(jti);
+		}
+
+		for (String jti : jtis) {
+			assertTrue(filter.mightContain(jti), "false negative for " + jti);
+		}
+	}
+
+	@Test
+	void falsePositiveRateStaysNearTarget() {
+		BloomFilter filter = BloomFilter.create(INSERTED, FPP);
+		for (int i = 0; i < INSERTED; i++) {
+			filter.put(UUID.randomUUID().toString());
+		}
+
+		int probes = 100_000;
+		int falsePositives = 0;
+		for (int i = 0; i < probes; i++) {
+			if (filter.mightContain(UUID.randomUUID().toString())) {
+				falsePositives++;
+			}
+		}
+
+		double rate = (double) falsePositives / probes;
+		assertTrue(rate < FPP * 2, "false-positive rate " + rate);
+	}
+}
@@ -0,0 +1,148 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import com.Cybersoft.Final_Capstone.exception.ServiceBusyException;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Bounded BCrypt pool behind SecurityConfig.passwordEncoder
+ */
+class BoundedPasswordEncoderTest {
+
+	@Test
+	void delegatesToBcrypt() {
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 1, 10, 5_000);
+		try {
+			String hash = encoder.encode("secret");
+			assertTrue(encoder.matches("secret", hash));
+			assertFalse(encoder.matches("wrong", hash));
+		} finally {
+			encoder.shutdown();
+		}
+	}
+
+	@Test
+	void rejectsWhenPoolAndQueueAreFull() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch started = new CountDownLatch(1);
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(started, release), 1, 1, 5_000);
+		ExecutorService callers = Executors.newFixedThreadPool(2);
+		try {
+			// 1 running + 1 queued
+			callers.submit(() -> encoder.matches("a", "a"));
+			assertTrue(started.await(5, TimeUnit.SECONDS));
+			callers.submit(() -> encoder.matches("b", "b"));
+			waitUntilQueued(encoder);
+
+			assertThrows(ServiceBusyException.class, () -> encoder.matches("c", "c"));
+		} finally {
+			release.countDown();
+			callers.shutdownNow();
+			encoder.shutdown();
+		}
+	}
+
+	@Test
+	void saturationRejectsBurstInsteadOfBlockingRequestThreads() throws Exception {
+		int threads = 2;
+		int queueCapacity = 4;
+		int burst = 40;
+		CountDownLatch release = new CountDownLatch(1);
+		// Long wait timeout: only admission control may keep callers from blocking
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(
+				blockingEncoder(new CountDownLatch(threads), release), threads, queueCapacity, 10_000);
+		ExecutorService requestThreads = Executors.newFixedThreadPool(burst);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Long>> rejectedAfterNanos = new ArrayList<>();
+			for (int i = 0; i < burst; i++) {
+				rejectedAfterNanos.add(requestThreads.submit(() -> {
+					start.await();
+					long begin = System.nanoTime();
+					try {
+						encoder.matches("a", "a");
+						return -1L;
+					} catch (ServiceBusyException e) {
+						return System.nanoTime() - begin;
+					}
+				}));
+			}
+			start.countDown();
+
+			// Everything beyond threads + queue comes back while hashing is still blocked
+			int expectedRejected = burst - threads - queueCapacity;
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (rejectedAfterNanos.stream().filter(Future::isDone).count() < expectedRejected
+					&& System.nanoTime() < deadline) {
+				Thread.sleep(10);
+			}
+			int rejected = 0;
+			for (Future<Long> result : rejectedAfterNanos) {
+				if (result.isDone()) {
+					long nanos = result.get();
+					assertTrue(nanos >= 0, "admitted call finished while hashing was blocked");
+					assertTrue(nanos < TimeUnit.MILLISECONDS.toNanos(500), "rejection took " + nanos + " ns");
+					rejected++;
+				}
+			}
+			assertEquals(expectedRejected, rejected);
+		} finally {
+			release.countDown();
+			requestThreads.shutdownNow();
+			encoder.shutdown();
+		}
+	}
+
+	@Test
+	void givesUpAfterWaitTimeout() {
+		CountDownLatch release = new CountDownLatch(1);
+		BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(blockingEncoder(new CountDownLatch(1), release), 1, 10, 50);
+		try {
+			assertThrows(ServiceBusyException.class, () -> encoder.matches("a", "a"));
+		} finally {
+			release.countDown();
+			encoder.shutdown();
+		}
+	}
+
+	private static void waitUntilQueued(BoundedPasswordEncoder encoder) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (encoder.queued() == 0 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static PasswordEncoder blockingEncoder(CountDownLatch started, CountDownLatch release) {
+		return new PasswordEncoder() {
+			@Override
+			public String encode(CharSequence rawPassword) {
+				return rawPassword.toString();
+			}
+
+			@Override
+			public boolean matches(CharSequence rawPassword, String encodedPassword) {
+				started.countDown();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return rawPassword.toString().equals(encodedPassword);
+			}
+		};
+	}
+}
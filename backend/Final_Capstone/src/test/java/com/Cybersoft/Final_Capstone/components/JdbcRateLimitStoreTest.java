@@ -0,0 +1,151 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Shared-store mode (rate-limit.store=jdbc): several instances on the real rate_limit_bucket table.
+ * No test transaction: every statement auto-commits like in RateLimitFilter, so the instances really race on the rows.
+ * Runs against the configured datasource like the context test; the table comes from its migration.
+ */
+@JdbcTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Sql(scripts = "classpath:db/migration/V5_3__Add_Rate_Limit_Bucket_Table.sql",
+		executionPhase = Sql.ExecutionPhase.BEFORE_TEST_CLASS)
+class JdbcRateLimitStoreTest {
+
+	private static final Duration WINDOW = Duration.ofSeconds(60);
+	private static final int CAPACITY = 4;
+
+	// Unique per test: rows never collide with real buckets or other runs
+	private final String prefix = "test-" + UUID.randomUUID() + ":";
+	private final AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@AfterEach
+	void deleteBuckets() {
+		jdbcTemplate.update("DELETE FROM rate_limit_bucket WHERE bucket_key LIKE ?", prefix + "%");
+	}
+
+	@Test
+	void limitIsSharedAcrossInstances() {
+		JdbcRateLimitStore instanceA = instance();
+		JdbcRateLimitStore instanceB = instance();
+
+		for (int i = 0; i < CAPACITY; i++) {
+			JdbcRateLimitStore instance = i % 2 == 0 ? instanceA : instanceB;
+			assertTrue(instance.tryAcquire(prefix + "login:10.0.0.1", CAPACITY, WINDOW), "request " + i);
+		}
+		assertFalse(instanceA.tryAcquire(prefix + "login:10.0.0.1", CAPACITY, WINDOW));
+		assertFalse(instanceB.tryAcquire(prefix + "login:10.0.0.1", CAPACITY, WINDOW));
+		// Other clients have their own bucket
+		assertTrue(instanceB.tryAcquire(prefix + "login:10.0.0.2", CAPACITY, WINDOW));
+	}
+
+	@Test
+	void rejectedRequestsLeaveTheBucketUnchanged() {
+		JdbcRateLimitStore instanceA = instance();
+		JdbcRateLimitStore instanceB = instance();
+		for (int i = 0; i < CAPACITY; i++) {
+			instanceA.tryAcquire(prefix + "search:10.0.0.1", CAPACITY, WINDOW);
+		}
+		long tat = tat(prefix + "search:10.0.0.1");
+
+		for (int i = 0; i < 20; i++) {
+			assertFalse(instanceB.tryAcquire(prefix + "search:10.0.0.1", CAPACITY, WINDOW));
+		}
+		// Denials do not push the refill time further out
+		assertEquals(tat, tat(prefix + "search:10.0.0.1"));
+
+		clock.set(tat - WINDOW.toMillis() + WINDOW.dividedBy(CAPACITY).toMillis());
+		assertTrue(instanceB.tryAcquire(prefix + "search:10.0.0.1", CAPACITY, WINDOW));
+	}
+
+	@Test
+	void refillIsVisibleToEveryInstance() {
+		JdbcRateLimitStore instanceA = instance();
+		JdbcRateLimitStore instanceB = instance();
+		for (int i = 0; i < CAPACITY; i++) {
+			instanceA.tryAcquire(prefix + "refresh:10.0.0.1", CAPACITY, WINDOW);
+		}
+
+		clock.addAndGet(WINDOW.dividedBy(CAPACITY).toMillis() - 1);
+		assertFalse(instanceB.tryAcquire(prefix + "refresh:10.0.0.1", CAPACITY, WINDOW));
+
+		clock.addAndGet(1);
+		assertTrue(instanceB.tryAcquire(prefix + "refresh:10.0.0.1", CAPACITY, WINDOW));
+		assertFalse(instanceA.tryAcquire(prefix + "refresh:10.0.0.1", CAPACITY, WINDOW));
+	}
+
+	@Test
+	void concurrentInstancesNeverExceedCapacity() throws Exception {
+		int threads = 8;
+		int capacity = 50;
+		JdbcRateLimitStore instanceA = instance();
+		JdbcRateLimitStore instanceB = instance();
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				JdbcRateLimitStore instance = t % 2 == 0 ? instanceA : instanceB;
+				results.add(pool.submit(() -> {
+					start.await();
+					int granted = 0;
+					for (int i = 0; i < capacity; i++) {
+						if (instance.tryAcquire(prefix + "create:10.0.0.1", capacity, WINDOW)) {
+							granted++;
+						}
+					}
+					return granted;
+				}));
+			}
+			start.countDown();
+
+			int granted = 0;
+			for (Future<Integer> result : results) {
+				granted += result.get(60, TimeUnit.SECONDS);
+			}
+			// The clock does not move: exactly one burst is granted, whichever instance wins each race
+			assertEquals(capacity, granted);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * One app instance: own store object, same table, shared test clock
+	 */
+	private JdbcRateLimitStore instance() {
+		return new JdbcRateLimitStore(jdbcTemplate, null, clock::get);
+	}
+
+	private long tat(String key) {
+		return jdbcTemplate.queryForObject("SELECT tat FROM rate_limit_bucket WHERE bucket_key = ?", Long.class, key);
+	}
+}
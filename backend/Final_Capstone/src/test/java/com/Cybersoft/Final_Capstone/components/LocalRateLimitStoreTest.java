@@ -0,0 +1,122 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Token buckets behind RateLimitFilter (in-memory store, manual clock)
+ */
+class LocalRateLimitStoreTest {
+
+	private static final Duration WINDOW = Duration.ofSeconds(60);
+	private static final int CAPACITY = 5;
+
+	private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+	private final LocalRateLimitStore store = new LocalRateLimitStore(clock::get);
+
+	@Test
+	void allowsBurstUpToCapacityThenRejects() {
+		for (int i = 0; i < CAPACITY; i++) {
+			assertTrue(store.tryAcquire("refresh:a", CAPACITY, WINDOW), "request " + i);
+		}
+		assertFalse(store.tryAcquire("refresh:a", CAPACITY, WINDOW));
+		// Other clients have their own bucket
+		assertTrue(store.tryAcquire("refresh:b", CAPACITY, WINDOW));
+	}
+
+	@Test
+	void refillsOneTokenPerInterval() {
+		for (int i = 0; i < CAPACITY; i++) {
+			store.tryAcquire("refresh:a", CAPACITY, WINDOW);
+		}
+
+		advance(WINDOW.dividedBy(CAPACITY).minusMillis(1));
+		assertFalse(store.tryAcquire("refresh:a", CAPACITY, WINDOW));
+
+		advance(Duration.ofMillis(1));
+		assertTrue(store.tryAcquire("refresh:a", CAPACITY, WINDOW));
+		assertFalse(store.tryAcquire("refresh:a", CAPACITY, WINDOW));
+	}
+
+	@Test
+	void timeWheelDropsOnlyIdleBuckets() {
+		for (int i = 0; i < 1_000; i++) {
+			store.tryAcquire("search:" + i, CAPACITY, WINDOW);
+		}
+		assertEquals(1_000, store.size());
+
+		// Keep one client busy while the others go idle
+		for (int second = 0; second < 120; second++) {
+			advance(Duration.ofSeconds(1));
+			store.tryAcquire("search:0", CAPACITY, WINDOW);
+			store.expireIdleBuckets();
+		}
+		assertEquals(1, store.size());
+
+		advance(WINDOW.plusSeconds(2));
+		store.expireIdleBuckets();
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	void bucketsLongerThanOneWheelRevolutionSurvive() {
+		Duration longWindow = Duration.ofSeconds(LocalRateLimitStore.WHEEL_SLOTS * 3L);
+		store.tryAcquire("login:a", 1, longWindow);
+
+		for (int second = 0; second < LocalRateLimitStore.WHEEL_SLOTS * 2; second++) {
+			advance(Duration.ofSeconds(1));
+			store.expireIdleBuckets();
+		}
+		assertEquals(1, store.size());
+		assertFalse(store.tryAcquire("login:a", 1, longWindow));
+	}
+
+	@Test
+	void concurrentRequestsNeverExceedCapacity() throws Exception {
+		int threads = 8;
+		int capacity = 1_000;
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(pool.submit(() -> {
+					start.await();
+					int granted = 0;
+					for (int i = 0; i < capacity; i++) {
+						if (store.tryAcquire("create:a", capacity, WINDOW)) {
+							granted++;
+						}
+					}
+					return granted;
+				}));
+			}
+			start.countDown();
+
+			int granted = 0;
+			for (Future<Integer> result : results) {
+				granted += result.get(30, TimeUnit.SECONDS);
+			}
+			assertEquals(capacity, granted);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	private void advance(Duration duration) {
+		clock.addAndGet(duration.toNanos());
+	}
+}
@@ -0,0 +1,114 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import com.Cybersoft.Final_Capstone.events.RefreshTokensRevokedEvent;
+import com.Cybersoft.Final_Capstone.repository.TokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Revoked refresh-token denylist: recent exact set -> bloom filter -> DB
+ */
+@ExtendWith(MockitoExtension.class)
+class RevokedTokenRegistryTest {
+
+	private static final long EXPECTED_REVOCATIONS = 1_000;
+	private static final double FALSE_POSITIVE_RATE = 0.01;
+
+	@Mock
+	private TokenRepository tokenRepository;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void revokedTokenIsRejectedWithoutReadingTheDatabase() {
+		RevokedTokenRegistry registry = registry(3600);
+		registry.rebuild();
+
+		registry.onTokensRevoked(new RefreshTokensRevokedEvent(List.of("rotated-jti")));
+		registry.markRevoked("logged-out-jti");
+
+		assertTrue(registry.isRevoked("rotated-jti"));
+		assertTrue(registry.isRevoked("logged-out-jti"));
+		// Never revoked: bloom miss, answered locally too
+		assertFalse(registry.isRevoked("active-jti"));
+
+		verify(tokenRepository, never()).existsByJtiAndRevokedTrue(anyString());
+		assertEquals(2, lookups("recent"));
+		assertEquals(1, lookups("bloom-miss"));
+	}
+
+	@Test
+	void bloomHitFallsBackToTheDatabaseOnce() {
+		// Revoked before this instance started: only in the bloom filter, not in the recent set
+		when(tokenRepository.findRevokedUnexpiredJtis(any())).thenReturn(List.of("old-jti"));
+		when(tokenRepository.existsByJtiAndRevokedTrue("old-jti")).thenReturn(true);
+		RevokedTokenRegistry registry = registry(3600);
+		registry.rebuild();
+
+		assertTrue(registry.isRevoked("old-jti"));
+		// Confirmed revocations are remembered exactly
+		assertTrue(registry.isRevoked("old-jti"));
+
+		verify(tokenRepository, times(1)).existsByJtiAndRevokedTrue("old-jti");
+		assertEquals(1, lookups("db-confirmed"));
+		assertEquals(1, lookups("recent"));
+	}
+
+	@Test
+	void expiredRevocationsArePrunedFromRecentSetAndFilter() throws InterruptedException {
+		when(tokenRepository.existsByJtiAndRevokedTrue("expired-jti")).thenReturn(true);
+		// recent-window-seconds = 0: everything is older than the window at the next sync
+		RevokedTokenRegistry registry = registry(0);
+		registry.rebuild();
+		registry.markRevoked("expired-jti");
+		Thread.sleep(5);
+
+		registry.sync();
+		// Out of the recent set, still in the bloom filter => confirmed by the DB
+		assertTrue(registry.isRevoked("expired-jti"));
+		assertEquals(1, lookups("db-confirmed"));
+
+		Thread.sleep(5);
+		registry.sync();
+		// Token expired: the periodic rebuild no longer loads it, so the filter forgets it
+		registry.rebuild();
+		assertFalse(registry.isRevoked("expired-jti"));
+		verify(tokenRepository, times(1)).existsByJtiAndRevokedTrue("expired-jti");
+		assertEquals(1, lookups("bloom-miss"));
+	}
+
+	@Test
+	void everyLookupGoesToTheDatabaseUntilTheFilterIsBuilt() {
+		when(tokenRepository.existsByJtiAndRevokedTrue("jti")).thenReturn(false);
+		RevokedTokenRegistry registry = registry(3600);
+
+		assertFalse(registry.isRevoked("jti"));
+		verify(tokenRepository).existsByJtiAndRevokedTrue("jti");
+		// Not a false positive: the filter was not consulted
+		assertEquals(0, lookups("false-positive"));
+	}
+
+	private RevokedTokenRegistry registry(long recentWindowSeconds) {
+		return new RevokedTokenRegistry(tokenRepository, meterRegistry,
+				EXPECTED_REVOCATIONS, FALSE_POSITIVE_RATE, recentWindowSeconds);
+	}
+
+	private double lookups(String result) {
+		return meterRegistry.get("auth.revocation.lookups").tag("result", result).counter().count();
+	}
+}
@@ -0,0 +1,108 @@
+package com.Cybersoft.Final_Capstone.components;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lock striping used by TransactionServiceImp.initPayment
+ */
+class StripedLocksTest {
+
+	@Test
+	void differentBookingsInitPaymentSimultaneously() throws Exception {
+		StripedLocks locks = new StripedLocks(64);
+		int bookingA = 1;
+		int bookingB = 2;
+		assertNotEquals(locks.stripeOf(bookingA), locks.stripeOf(bookingB));
+
+		CountDownLatch aInside = new CountDownLatch(1);
+		CountDownLatch releaseA = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(2);
+		try {
+			// Booking A holds its lock (e.g. waiting on the PayOS HTTP call)
+			Future<?> a = pool.submit(() -> locks.withLock(bookingA, () -> {
+				aInside.countDown();
+				await(releaseA);
+				return null;
+			}));
+			assertTrue(aInside.await(5, TimeUnit.SECONDS));
+
+			// Booking B must not wait for A
+			Future<Boolean> b = pool.submit(() -> locks.withLock(bookingB, () -> true));
+			assertTrue(b.get(5, TimeUnit.SECONDS));
+
+			releaseA.countDown();
+			a.get(5, TimeUnit.SECONDS);
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	@Test
+	void sameBookingNeverCreatesTwoPendingTransactions() throws Exception {
+		StripedLocks locks = new StripedLocks(64);
+		int bookingId = 42;
+		int threads = 8;
+
+		// Simulates initPayment: "find PENDING transaction, otherwise create one"
+		List<String> pendingTransactions = new ArrayList<>();
+		AtomicInteger reused = new AtomicInteger();
+
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				futures.add(pool.submit(() -> {
+					await(start);
+					return locks.withLock(bookingId, () -> {
+						if (!pendingTransactions.isEmpty()) {
+							reused.incrementAndGet();
+							return null;
+						}
+						sleep(20); // gateway call while holding the lock
+						pendingTransactions.add("PENDING-" + bookingId);
+						return null;
+					});
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get(10, TimeUnit.SECONDS);
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertEquals(1, pendingTransactions.size());
+		assertEquals(threads - 1, reused.get());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
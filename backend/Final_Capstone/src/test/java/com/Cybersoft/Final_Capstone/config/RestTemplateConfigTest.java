@@ -0,0 +1,89 @@
+package com.Cybersoft.Final_Capstone.config;
+
+import com.sun.net.httpserver.HttpServer;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Pooled outbound client against a local stub server
+ */
+class RestTemplateConfigTest {
+
+	private HttpServer server;
+	private PoolingHttpClientConnectionManager connectionManager;
+	private CloseableHttpClient httpClient;
+	private RestTemplate restTemplate;
+	private String baseUrl;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/ok", exchange -> {
+			byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		server.createContext("/slow", exchange -> {
+			try {
+				Thread.sleep(2000);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			exchange.sendResponseHeaders(200, -1);
+			exchange.close();
+		});
+		server.start();
+		baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+
+		HttpClientProperties properties = new HttpClientProperties();
+		properties.setConnectTimeoutMs(500);
+		properties.setReadTimeoutMs(300);
+		properties.setMaxPerRoute(2);
+
+		connectionManager = RestTemplateConfig.connectionManager(properties);
+		httpClient = RestTemplateConfig.httpClient(connectionManager, properties);
+		restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		httpClient.close();
+		server.stop(0);
+	}
+
+	@Test
+	void connectionIsReturnedToPoolAndReused() {
+		for (int i = 0; i < 5; i++) {
+			assertEquals("ok", restTemplate.getForObject(baseUrl + "/ok", String.class));
+		}
+
+		// Keep-alive: one idle pooled connection served every call, none left leased
+		assertEquals(0, connectionManager.getTotalStats().getLeased());
+		assertEquals(1, connectionManager.getTotalStats().getAvailable());
+	}
+
+	@Test
+	void slowTargetFailsAtReadTimeout() {
+		long start = System.nanoTime();
+		assertThrows(ResourceAccessException.class,
+				() -> restTemplate.getForObject(baseUrl + "/slow", String.class));
+		long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+		assertTrue(elapsedMs < 1500, "read timeout should fire well before the stub answers: " + elapsedMs + "ms");
+		assertEquals(0, connectionManager.getTotalStats().getLeased());
+	}
+}
@@ -0,0 +1,48 @@
+package com.Cybersoft.Final_Capstone.scheduler;
+
+import com.Cybersoft.Final_Capstone.Entity.Property;
+import com.Cybersoft.Final_Capstone.Entity.Role;
+import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.StatementCountTestSupport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A payment-timeout chunk is set-based: the same statements whether it cancels 2 or 10 bookings
+ * (lock ids, snapshot rows, refund lookup, one bulk UPDATE). The chunk joins the test transaction and is rolled back.
+ */
+class PaymentTimeoutJobQueryCountTest extends StatementCountTestSupport {
+
+	private static final int SMALL_CHUNK = 2;
+	private static final int LARGE_CHUNK = 10;
+
+	@Autowired
+	private PaymentTimeoutJob paymentTimeoutJob;
+
+	@Test
+	void expiredChunkUsesConstantStatementCount() {
+		// CONFIRMED more than 24h ago, never paid; no promotions (refunds add one UPDATE per distinct code by design)
+		UserAccount guest = persistUser(Role.GUEST);
+		Property property = persistProperty(persistUser(Role.HOST));
+		LocalDateTime confirmedAt = LocalDateTime.now().minusHours(25);
+		List<Integer> expired = new ArrayList<>();
+		for (int i = 0; i < SMALL_CHUNK + LARGE_CHUNK; i++) {
+			expired.add(persistBooking(guest, property, "CONFIRMED", confirmedAt).getId());
+		}
+
+		long small = statementsFor(() -> cancel(expired.subList(0, SMALL_CHUNK)));
+		long large = statementsFor(() -> cancel(expired.subList(SMALL_CHUNK, SMALL_CHUNK + LARGE_CHUNK)));
+
+		assertEquals(small, large, "statement count grew with chunk size");
+	}
+
+	private void cancel(List<Integer> bookingIds) {
+		assertEquals(bookingIds.size(), paymentTimeoutJob.cancelIfExpired(bookingIds));
+	}
+}
@@ -0,0 +1,49 @@
+package com.Cybersoft.Final_Capstone.service;
+
+import com.Cybersoft.Final_Capstone.Entity.Property;
+import com.Cybersoft.Final_Capstone.Entity.Role;
+import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.StatementCountTestSupport;
+import com.Cybersoft.Final_Capstone.dto.BookingDTO;
+import com.Cybersoft.Final_Capstone.payload.response.PageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * User booking list must run a fixed number of statements per page, whatever the page size
+ * (no per-row PromotionUsage / lazy-load queries)
+ */
+class BookingListQueryCountTest extends StatementCountTestSupport {
+
+	private static final int SMALL_PAGE = 2;
+	private static final int LARGE_PAGE = 10;
+
+	@Autowired
+	private BookingService bookingService;
+
+	@Test
+	void userBookingPageUsesConstantStatementCount() {
+		// Bookings spread over several properties, so the page really has distinct to-one rows to load
+		UserAccount guest = persistUser(Role.GUEST);
+		UserAccount host = persistUser(Role.HOST);
+		Property[] properties = {persistProperty(host), persistProperty(host), persistProperty(host)};
+		for (int i = 0; i <= LARGE_PAGE; i++) {
+			persistBooking(guest, properties[i % properties.length], "CONFIRMED", null);
+		}
+
+		long small = statementsFor(() -> list(guest.getId(), SMALL_PAGE));
+		long large = statementsFor(() -> list(guest.getId(), LARGE_PAGE));
+
+		assertEquals(small, large, "statement count grew with page size");
+	}
+
+	private void list(Integer userId, int pageSize) {
+		PageResponse<BookingDTO> page = bookingService.filterUserBookings(userId, null, PageRequest.of(0, pageSize));
+
+		assertEquals(LARGE_PAGE + 1, page.getTotalElements());
+		assertEquals(pageSize, page.getContent().size());
+	}
+}
@@ -0,0 +1,153 @@
+package com.Cybersoft.Final_Capstone.service.Imp;
+
+import com.Cybersoft.Final_Capstone.Entity.Booking;
+import com.Cybersoft.Final_Capstone.Entity.Status;
+import com.Cybersoft.Final_Capstone.Entity.Transaction;
+import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.components.SecurityUtil;
+import com.Cybersoft.Final_Capstone.payload.request.PaymentInitRequest;
+import com.Cybersoft.Final_Capstone.payload.response.PayOSPaymentData;
+import com.Cybersoft.Final_Capstone.payload.response.PaymentInitResponse;
+import com.Cybersoft.Final_Capstone.repository.BookingRepository;
+import com.Cybersoft.Final_Capstone.repository.PromotionUsageRepository;
+import com.Cybersoft.Final_Capstone.repository.TransactionRepository;
+import com.Cybersoft.Final_Capstone.service.PayOSService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Concurrent payment init for one booking (double click, retrying client) creates a single transaction.
+ * Repositories are backed by an in-memory list; the PayOS call is slow so requests really overlap.
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionServiceImpTest {
+
+	private static final int BOOKING_ID = 42;
+	private static final int USER_ID = 7;
+	private static final int CONCURRENT_REQUESTS = 8;
+
+	@Mock
+	private BookingRepository bookingRepository;
+
+	@Mock
+	private TransactionRepository transactionRepository;
+
+	@Mock
+	private PromotionUsageRepository promotionUsageRepository;
+
+	@Mock
+	private SecurityUtil securityUtil;
+
+	@Mock
+	private PayOSService payOSService;
+
+	@Mock
+	private TransactionTemplate transactionTemplate;
+
+	@InjectMocks
+	private TransactionServiceImp transactionService;
+
+	// transaction table
+	private final List<Transaction> transactions = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		UserAccount user = new UserAccount();
+		user.setId(USER_ID);
+		user.setStatus(new Status(1)); // ACTIVE
+
+		Booking booking = new Booking();
+		booking.setId(BOOKING_ID);
+		booking.setUser(user);
+		booking.setStatus(new Status(7)); // CONFIRMED
+		booking.setConfirmedAt(LocalDateTime.now().minusHours(1));
+		booking.setTotalPrice(BigDecimal.valueOf(1_000_000));
+
+		when(securityUtil.getLoggedInUserId()).thenReturn(USER_ID);
+		when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+				invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+		when(bookingRepository.findByIdForUpdate(BOOKING_ID)).thenReturn(Optional.of(booking));
+		when(bookingRepository.findByIdWithDetails(BOOKING_ID)).thenReturn(Optional.of(booking));
+		when(transactionRepository.findByBookingId(anyInt())).thenAnswer(invocation -> {
+			synchronized (transactions) {
+				return new ArrayList<>(transactions);
+			}
+		});
+		when(transactionRepository.findById(anyLong())).thenAnswer(invocation -> {
+			synchronized (transactions) {
+				return transactions.stream().filter(t -> t.getId().equals(invocation.getArgument(0))).findFirst();
+			}
+		});
+		when(transactionRepository.save(any())).thenAnswer(invocation -> {
+			Transaction transaction = invocation.getArgument(0);
+			synchronized (transactions) {
+				if (transaction.getId() == null) {
+					transaction.setId((long) transactions.size() + 1);
+					transaction.setTransactionDate(LocalDateTime.now()); // @CreationTimestamp
+					transactions.add(transaction);
+				}
+			}
+			return transaction;
+		});
+		when(payOSService.sendPaymentRequest(any())).thenAnswer(invocation -> {
+			// Slow gateway: the other requests pile up behind the booking lock
+			Thread.sleep(50);
+			PayOSPaymentData data = new PayOSPaymentData();
+			data.setCheckoutUrl("https://pay.payos.vn/web/" + BOOKING_ID);
+			return data;
+		});
+	}
+
+	@Test
+	void concurrentInitForOneBookingCreatesOneTransaction() throws Exception {
+		ExecutorService clients = Executors.newFixedThreadPool(CONCURRENT_REQUESTS);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<PaymentInitResponse>> responses = new ArrayList<>();
+			for (int i = 0; i < CONCURRENT_REQUESTS; i++) {
+				responses.add(clients.submit(() -> {
+					start.await();
+					return transactionService.initPayment(new PaymentInitRequest(BOOKING_ID, "PAYOS"));
+				}));
+			}
+			start.countDown();
+
+			for (Future<PaymentInitResponse> response : responses) {
+				PaymentInitResponse result = response.get(30, TimeUnit.SECONDS);
+				assertEquals(1L, result.getTransactionId());
+				assertEquals("https://pay.payos.vn/web/" + BOOKING_ID, result.getPayUrl());
+			}
+		} finally {
+			clients.shutdownNow();
+		}
+
+		assertEquals(1, transactions.size());
+		assertEquals(String.valueOf(BOOKING_ID), transactions.get(0).getOrderId());
+		verify(payOSService, times(1)).sendPaymentRequest(any());
+	}
+}
@@ -0,0 +1,50 @@
+package com.Cybersoft.Final_Capstone.service;
+
+import com.Cybersoft.Final_Capstone.Entity.Role;
+import com.Cybersoft.Final_Capstone.Entity.UserAccount;
+import com.Cybersoft.Final_Capstone.StatementCountTestSupport;
+import com.Cybersoft.Final_Capstone.dto.PropertyListItemDTO;
+import com.Cybersoft.Final_Capstone.payload.request.PropertySearchRequest;
+import com.Cybersoft.Final_Capstone.payload.response.PageResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Property search must run a fixed number of statements per page, whatever the page size
+ * (host/location/city via entity graph, thumbnails in one batch query)
+ */
+class PropertySearchQueryCountTest extends StatementCountTestSupport {
+
+	private static final int SMALL_PAGE = 2;
+	private static final int LARGE_PAGE = 10;
+
+	@Autowired
+	private PropertyService propertyService;
+
+	@Test
+	void searchPageUsesConstantStatementCount() {
+		// More than one large page, so both searches also run the count query
+		UserAccount host = persistUser(Role.HOST);
+		for (int i = 0; i <= LARGE_PAGE; i++) {
+			persistProperty(host);
+		}
+
+		long small = statementsFor(() -> search(SMALL_PAGE));
+		long large = statementsFor(() -> search(LARGE_PAGE));
+
+		assertEquals(small, large, "statement count grew with page size");
+	}
+
+	private void search(int pageSize) {
+		PropertySearchRequest request = new PropertySearchRequest();
+		request.setName(tag); // only the seeded properties
+		request.setSize(pageSize);
+
+		PageResponse<PropertyListItemDTO> page = propertyService.searchPropertiesPaginated(request);
+
+		assertEquals(LARGE_PAGE + 1, page.getTotalElements());
+		assertEquals(pageSize, page.getContent().size());
+	}
+}
@@ -0,0 +1,56 @@
+package com.Cybersoft.Final_Capstone.service.availability;
+
+import com.Cybersoft.Final_Capstone.events.BookingStatusChangedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Status transitions published by BookingServiceImp keep the availability index in sync
+ */
+class PropertyAvailabilityIndexTest {
+
+	private static final int PROPERTY_ID = 1;
+	private static final LocalDateTime CHECK_IN = LocalDateTime.of(2030, 1, 10, 14, 0);
+	private static final LocalDateTime CHECK_OUT = LocalDateTime.of(2030, 1, 12, 12, 0);
+
+	private final PropertyAvailabilityIndex index = new PropertyAvailabilityIndex(null);
+
+	@Test
+	void confirmedAndPaidStaysBlockTheirDates() {
+		index.onBookingStatusChanged(event(1, "PENDING", "CONFIRMED"));
+		assertTrue(index.hasConflict(PROPERTY_ID, CHECK_IN.plusDays(1), CHECK_OUT.plusDays(1)));
+
+		index.onBookingStatusChanged(event(1, "CONFIRMED", "PAID"));
+		assertTrue(index.hasConflict(PROPERTY_ID, CHECK_IN, CHECK_OUT));
+		// Back-to-back stays do not overlap
+		assertFalse(index.hasConflict(PROPERTY_ID, CHECK_OUT, CHECK_OUT.plusDays(2)));
+	}
+
+	@Test
+	void manualStatusUpdateNameIsMatchedCaseInsensitively() {
+		// updateBookingStatus accepts any case from the admin API
+		index.onBookingStatusChanged(event(2, "PENDING", "confirmed"));
+		assertTrue(index.hasConflict(PROPERTY_ID, CHECK_IN, CHECK_OUT));
+	}
+
+	@Test
+	void leavingABlockingStatusReleasesTheDates() {
+		index.onBookingStatusChanged(event(3, "PENDING", "CONFIRMED"));
+		index.onBookingStatusChanged(event(3, "CONFIRMED", "CANCELLED"));
+		assertFalse(index.hasConflict(PROPERTY_ID, CHECK_IN, CHECK_OUT));
+
+		// Unknown / missing name never blocks
+		index.onBookingStatusChanged(event(4, "PENDING", null));
+		assertFalse(index.hasConflict(PROPERTY_ID, CHECK_IN, CHECK_OUT));
+	}
+
+	private static BookingStatusChangedEvent event(int bookingId, String previousStatus, String status) {
+		return new BookingStatusChangedEvent(bookingId, PROPERTY_ID, CHECK_IN, CHECK_OUT,
+				previousStatus, status, BigDecimal.TEN);
+	}
+}
@@ -0,0 +1,109 @@
+package com.Cybersoft.Final_Capstone.util;
+
+import com.Cybersoft.Final_Capstone.config.PayOSConfig;
+import com.Cybersoft.Final_Capstone.payload.request.PayOSWebhookRequest;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Buffer-based signer must match the previous TreeMap/String.format implementation byte for byte
+ */
+class PayOSSignatureUtilsTest {
+
+	private static final String KEY = "79ee5d5b8f3d1044b12f9f9098eb54fc6fb576b18556acbe51d0c09a7cd20aa9";
+
+	private final PayOSSignatureUtils signatureUtils = new PayOSSignatureUtils(config());
+
+	@Test
+	void paymentRequestSignatureMatchesFormattedString() throws Exception {
+		String raw = String.format("amount=%d&cancelUrl=%s&description=%s&orderCode=%d&returnUrl=%s",
+				1500000L, "http://localhost:4200/payment/cancel", "BK123", 1235678, "http://localhost:4200/payment/success");
+
+		assertEquals(hmac(raw), signatureUtils.signPaymentRequest(1500000L,
+				"http://localhost:4200/payment/cancel", "BK123", 1235678, "http://localhost:4200/payment/success"));
+	}
+
+	@Test
+	void webhookSignatureMatchesSortedFieldString() throws Exception {
+		PayOSWebhookRequest.PayOSWebhookData data = new PayOSWebhookRequest.PayOSWebhookData();
+		data.setOrderCode(1235678L);
+		data.setAmount(1500000L);
+		data.setDescription("BK123 thanh toán đặt phòng 🏨");
+		data.setAccountNumber("12345678");
+		data.setReference("FT2510170001");
+		data.setTransactionDateTime("2025-10-17 10:15:30");
+		data.setCurrency("VND");
+		data.setPaymentLinkId("abc123");
+		data.setCode("00");
+		data.setDesc("success");
+		data.setCounterAccountName("null");
+		data.setVirtualAccountName("undefined");
+
+		String expected = hmac(legacyWebhookString(data));
+
+		assertTrue(signatureUtils.verifyWebhook(data, expected));
+		assertTrue(signatureUtils.verifyWebhook(data, expected.toUpperCase()));
+
+		data.setAmount(1500001L);
+		assertFalse(signatureUtils.verifyWebhook(data, expected));
+	}
+
+	@Test
+	void malformedSignatureIsRejected() {
+		PayOSWebhookRequest.PayOSWebhookData data = new PayOSWebhookRequest.PayOSWebhookData();
+		assertFalse(signatureUtils.verifyWebhook(data, null));
+		assertFalse(signatureUtils.verifyWebhook(data, "abc"));
+		assertFalse(signatureUtils.verifyWebhook(data, "z".repeat(64)));
+	}
+
+	private static PayOSConfig config() {
+		PayOSConfig config = new PayOSConfig();
+		config.setChecksumKey(KEY);
+		return config;
+	}
+
+	private static String legacyWebhookString(PayOSWebhookRequest.PayOSWebhookData data) {
+		Map<String, String> fields = new TreeMap<>();
+		fields.put("accountNumber", clean(data.getAccountNumber()));
+		fields.put("amount", clean(data.getAmount()));
+		fields.put("code", clean(data.getCode()));
+		fields.put("counterAccountBankId", clean(data.getCounterAccountBankId()));
+		fields.put("counterAccountBankName", clean(data.getCounterAccountBankName()));
+		fields.put("counterAccountName", clean(data.getCounterAccountName()));
+		fields.put("counterAccountNumber", clean(data.getCounterAccountNumber()));
+		fields.put("currency", clean(data.getCurrency()));
+		fields.put("desc", clean(data.getDesc()));
+		fields.put("description", clean(data.getDescription()));
+		fields.put("orderCode", clean(data.getOrderCode()));
+		fields.put("paymentLinkId", clean(data.getPaymentLinkId()));
+		fields.put("reference", clean(data.getReference()));
+		fields.put("transactionDateTime", clean(data.getTransactionDateTime()));
+		fields.put("virtualAccountName", clean(data.getVirtualAccountName()));
+		fields.put("virtualAccountNumber", clean(data.getVirtualAccountNumber()));
+		return fields.entrySet().stream()
+				.map(e -> e.getKey() + "=" + e.getValue())
+				.collect(Collectors.joining("&"));
+	}
+
+	private static String clean(Object value) {
+		String text = value == null ? "" : String.valueOf(value);
+		return "null".equalsIgnoreCase(text) || "undefined".equalsIgnoreCase(text) ? "" : text;
+	}
+
+	private static String hmac(String raw) throws Exception {
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(KEY.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		return HexFormat.of().formatHex(mac.doFinal(raw.getBytes(StandardCharsets.UTF_8)));
+	}
+}